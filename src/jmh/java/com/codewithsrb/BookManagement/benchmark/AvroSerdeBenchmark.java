@@ -0,0 +1,89 @@
+package com.codewithsrb.BookManagement.benchmark;
+
+import com.codewithsrb.BookManagement.schema.BookKey;
+import com.codewithsrb.BookManagement.schema.BookValue;
+import io.confluent.kafka.schemaregistry.client.MockSchemaRegistryClient;
+import io.confluent.kafka.serializers.KafkaAvroDeserializer;
+import io.confluent.kafka.serializers.KafkaAvroSerializer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Avro serialization and deserialization of the book key and value through the confluent serializers,
+ * backed by an in-memory schema registry.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AvroSerdeBenchmark {
+
+    private static final String TOPIC = "benchmark.topic";
+    private static final Map<String, Object> SERDE_CONFIG = Map.of(
+            "schema.registry.url", "mock://benchmark",
+            "specific.avro.reader", true);
+
+    private KafkaAvroSerializer keySerializer;
+    private KafkaAvroSerializer valueSerializer;
+    private KafkaAvroDeserializer keyDeserializer;
+    private KafkaAvroDeserializer valueDeserializer;
+    private BookKey key;
+    private BookValue value;
+    private byte[] serializedKey;
+    private byte[] serializedValue;
+
+    @Setup
+    public void setUp() {
+        MockSchemaRegistryClient schemaRegistryClient = new MockSchemaRegistryClient();
+        keySerializer = new KafkaAvroSerializer(schemaRegistryClient);
+        keySerializer.configure(SERDE_CONFIG, true);
+        valueSerializer = new KafkaAvroSerializer(schemaRegistryClient);
+        valueSerializer.configure(SERDE_CONFIG, false);
+        keyDeserializer = new KafkaAvroDeserializer(schemaRegistryClient);
+        keyDeserializer.configure(SERDE_CONFIG, true);
+        valueDeserializer = new KafkaAvroDeserializer(schemaRegistryClient);
+        valueDeserializer.configure(SERDE_CONFIG, false);
+
+        key = BookKey.newBuilder().setBookId(42).build();
+        value = BookValue.newBuilder()
+                .setTitle("The Hobbit")
+                .setAuthor("J. R. R. Tolkien")
+                .setBookLanguage("English")
+                .setPrice(40.50)
+                .build();
+        serializedKey = keySerializer.serialize(TOPIC, key);
+        serializedValue = valueSerializer.serialize(TOPIC, value);
+    }
+
+    @TearDown
+    public void tearDown() {
+        keySerializer.close();
+        valueSerializer.close();
+        keyDeserializer.close();
+        valueDeserializer.close();
+    }
+
+    @Benchmark
+    public byte[] serializeKey() {
+        return keySerializer.serialize(TOPIC, key);
+    }
+
+    @Benchmark
+    public byte[] serializeValue() {
+        return valueSerializer.serialize(TOPIC, value);
+    }
+
+    @Benchmark
+    public Object deserializeKey() {
+        return keyDeserializer.deserialize(TOPIC, serializedKey);
+    }
+
+    @Benchmark
+    public Object deserializeValue() {
+        return valueDeserializer.deserialize(TOPIC, serializedValue);
+    }
+}
@@ -0,0 +1,104 @@
+package com.codewithsrb.BookManagement.benchmark;
+
+import com.codewithsrb.BookManagement.BookManagementApplication;
+import com.codewithsrb.BookManagement.model.Book;
+import com.codewithsrb.BookManagement.service.BookService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Load test of the /books endpoints over real HTTP with many concurrent clients, comparing the default platform thread
+ * pool with virtual threads. Throughput and the sampled latency percentiles (p0.99) are both reported.
+ * Virtual threads need Java 21, run it with: mvn -Pbenchmarks,java21 verify -DskipTests -Djmh.args="BookEndpointLoadBenchmark -rf json"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(256)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BookEndpointLoadBenchmark {
+
+    private static final String CREDENTIALS = "{\"email\": \"load@email.com\", \"password\": \"loadtest\"}";
+    private static final String ACCESS_TOKEN_PREFIX = "access_token: ";
+    private static final int CATALOG_SIZE = 1_000;
+    private static final int OK = 200;
+
+    @Param({"false", "true"})
+    private boolean virtualThreads;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private HttpRequest bookRequest;
+    private HttpRequest pageRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        context = new SpringApplicationBuilder(BookManagementApplication.class).run(
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--spring.kafka.listener.auto-startup=false",
+                "--spring.kafka.admin.auto-create=false",
+                "--rate-limit.enabled=false",
+                "--outbox.relay.enabled=false",
+                "--logging.level.root=WARN");
+        context.getBean(BookService.class).createNewBooks(IntStream.range(0, CATALOG_SIZE)
+                .mapToObj(index -> Book.builder().title("The Hobbit " + index).author("J. R. R. Tolkien").bookLanguage("English").price(40.50).build())
+                .toList());
+
+        String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/books";
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        String authorization = "Bearer " + login(baseUrl);
+        bookRequest = HttpRequest.newBuilder(URI.create(baseUrl + "/1")).header("Authorization", authorization).build();
+        pageRequest = HttpRequest.newBuilder(URI.create(baseUrl + "?after=500&limit=50")).header("Authorization", authorization).build();
+    }
+
+    private String login(String baseUrl) throws IOException, InterruptedException {
+        httpClient.send(jsonPost(baseUrl + "/register"), BodyHandlers.discarding());
+        String loginResponse = httpClient.send(jsonPost(baseUrl + "/login"), BodyHandlers.ofString()).body();
+        JsonNode data = new ObjectMapper().readTree(loginResponse).get("data");
+        return data.get(1).asText().substring(ACCESS_TOKEN_PREFIX.length());
+    }
+
+    private static HttpRequest jsonPost(String url) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(CREDENTIALS))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int getBookById() throws IOException, InterruptedException {
+        return send(bookRequest);
+    }
+
+    @Benchmark
+    public int getBooksPage() throws IOException, InterruptedException {
+        return send(pageRequest);
+    }
+
+    private int send(HttpRequest request) throws IOException, InterruptedException {
+        int status = httpClient.send(request, BodyHandlers.discarding()).statusCode();
+        if (status != OK) {
+            throw new IllegalStateException("GET " + request.uri().getPath() + " answered " + status);
+        }
+        return status;
+    }
+}
@@ -0,0 +1,126 @@
+package com.codewithsrb.BookManagement.benchmark;
+
+import com.codewithsrb.BookManagement.controller.BookAvroHttpMessageConverter;
+import com.codewithsrb.BookManagement.model.Book;
+import com.codewithsrb.BookManagement.model.BookResponse;
+import com.codewithsrb.BookManagement.model.HttpResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.springframework.http.HttpStatus.OK;
+
+/**
+ * A full page of 500 books written and read back in every format the book endpoints negotiate, with and without gzip.
+ * The size of the page in the format is printed at the end of every trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookResponseFormatBenchmark {
+
+    private static final int PAGE_SIZE = 500;
+    private static final String[] WORDS = {"dragon", "river", "winter", "shadow", "garden", "empire", "silver", "stone",
+            "ocean", "forest", "crown", "letter", "night", "machine", "island", "storm", "glass", "orchard", "tower", "harbor"};
+    private static final String[] AUTHORS = {"J. R. R. Tolkien", "Ursula K. Le Guin", "Terry Pratchett", "Octavia E. Butler",
+            "Isaac Asimov", "Mary Shelley", "Chinua Achebe", "Haruki Murakami"};
+    private static final String[] LANGUAGES = {"English", "German", "French", "Japanese"};
+
+    @Param({"json", "cbor", "smile", "avro"})
+    private String format;
+
+    @Param({"false", "true"})
+    private boolean gzip;
+
+    private ObjectMapper objectMapper;
+    private List<Book> books;
+    private HttpResponse httpResponse;
+    private byte[] payload;
+
+    public static class BookList {
+
+        public List<Book> data;
+        public Integer nextCursor;
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = switch (format) {
+            case "json" -> Jackson2ObjectMapperBuilder.json().build();
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor().build();
+            case "smile" -> Jackson2ObjectMapperBuilder.smile().build();
+            default -> null;
+        };
+        SplittableRandom random = new SplittableRandom(42);
+        books = IntStream.rangeClosed(1, PAGE_SIZE)
+                .mapToObj(id -> Book.builder()
+                        .id(id)
+                        .title("The " + pick(random, WORDS) + " of the " + pick(random, WORDS) + " " + random.nextInt(1000))
+                        .author(pick(random, AUTHORS))
+                        .bookLanguage(pick(random, LANGUAGES))
+                        .price(random.nextInt(100, 10_000) / 100.0)
+                        .version((long) random.nextInt(5))
+                        .build())
+                .toList();
+        httpResponse = BookResponse.builder()
+                .timeStamp(LocalDateTime.now().toString())
+                .statusCode(OK.value())
+                .httpStatus(OK)
+                .message("Successfully retrieved all books")
+                .data(books)
+                .nextCursor(PAGE_SIZE)
+                .build();
+        payload = write();
+    }
+
+    private static String pick(SplittableRandom random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    @TearDown
+    public void printPayloadSize() {
+        System.out.printf("%n%s%s page of %d books: %d bytes%n", format, gzip ? "+gzip" : "", PAGE_SIZE, payload.length);
+    }
+
+    @Benchmark
+    public byte[] writePage() throws IOException {
+        return write();
+    }
+
+    @Benchmark
+    public List<Book> readPage() throws IOException {
+        try (InputStream inputStream = gzip ? new GZIPInputStream(new ByteArrayInputStream(payload)) : new ByteArrayInputStream(payload)) {
+            return objectMapper == null
+                    ? BookAvroHttpMessageConverter.readBooks(inputStream)
+                    : objectMapper.readValue(inputStream, BookList.class).data;
+        }
+    }
+
+    private byte[] write() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * 1024);
+        try (OutputStream outputStream = gzip ? new GZIPOutputStream(bytes) : bytes) {
+            if (objectMapper == null) {
+                BookAvroHttpMessageConverter.writeBooks(books, outputStream);
+            } else {
+                objectMapper.writeValue(outputStream, httpResponse);
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,71 @@
+package com.codewithsrb.BookManagement.benchmark;
+
+import com.codewithsrb.BookManagement.model.Book;
+import com.codewithsrb.BookManagement.model.BookChangedEvent;
+import com.codewithsrb.BookManagement.service.BookSearchService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search queries against an in-memory index of a synthetic one million book catalog. Titles draw three words
+ * from a vocabulary of about 27,000 generated words and authors from about 5,000 surnames, a few of which are real,
+ * so "tolkien" and "hobbit king" behave like typical selective queries and the "dra" prefix matches a few percent of the catalog.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BookSearchBenchmark {
+
+    private static final int CATALOG_SIZE = 1_000_000;
+    private static final int TITLE_WORDS = 3;
+    private static final int SURNAMES = 5_000;
+    private static final String[] SYLLABLES = {"ba", "ce", "di", "fo", "gu", "ha", "je", "ki", "lo", "mu", "na", "pe", "ri", "so", "tu",
+            "va", "we", "xi", "yo", "za", "bra", "cle", "dra", "fri", "glo", "pra", "ste", "tri", "vo", "wy"};
+    private static final String[] WORDS = {"hobbit", "ring", "tower", "return", "king", "fellowship", "silmarillion", "river",
+            "shadow", "dragon", "castle", "winter", "garden", "ocean", "secret", "history", "journey", "night", "empire", "island"};
+    private static final String[] AUTHORS = {"Tolkien", "Austen", "Tolstoy", "Dickens", "Rowling", "Orwell", "Woolf", "Hemingway"};
+
+    @Param({"tolkien", "hobbit king", "dra"})
+    private String query;
+
+    private BookSearchService bookSearchService;
+
+    @Setup
+    public void setUp() {
+        List<String> vocabulary = new ArrayList<>(List.of(WORDS));
+        for (String first : SYLLABLES) {
+            for (String second : SYLLABLES) {
+                vocabulary.add(first + second);
+                for (String third : SYLLABLES) {
+                    vocabulary.add(first + second + third);
+                }
+            }
+        }
+        List<String> surnames = new ArrayList<>(List.of(AUTHORS));
+        surnames.addAll(vocabulary.subList(vocabulary.size() - SURNAMES + AUTHORS.length, vocabulary.size()));
+
+        bookSearchService = new BookSearchService(null, null, null);
+        Random random = new Random(42);
+        for (int id = 1; id <= CATALOG_SIZE; id++) {
+            StringJoiner title = new StringJoiner(" ");
+            for (int word = 0; word < TITLE_WORDS; word++) {
+                title.add(vocabulary.get(random.nextInt(vocabulary.size())));
+            }
+            String author = vocabulary.get(random.nextInt(vocabulary.size())) + " " + surnames.get(random.nextInt(surnames.size()));
+            bookSearchService.onBookChanged(new BookChangedEvent(id, Book.builder().id(id).title(title.toString()).author(author).build()));
+        }
+    }
+
+    @Benchmark
+    public List<Book> search() {
+        return bookSearchService.search(query, 20);
+    }
+}
@@ -0,0 +1,93 @@
+package com.codewithsrb.BookManagement.benchmark;
+
+import com.codewithsrb.BookManagement.BookManagementApplication;
+import com.codewithsrb.BookManagement.model.Book;
+import com.codewithsrb.BookManagement.model.BookBatchItem;
+import com.codewithsrb.BookManagement.model.BookPage;
+import com.codewithsrb.BookManagement.service.BookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * BookService operations against the embedded H2 database. Kafka is not touched: the listener does not start
+ * and the outbox relay is disabled, so the events only accumulate in the outbox table.
+ * The single and batch creation benchmarks both create {@link #BATCH_SIZE} books per invocation and report the time per book.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookServiceBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+    private static final int CATALOG_SIZE = 1_000;
+    private static final String[] BENCHMARK_ARGS = {
+            "--server.port=0",
+            "--spring.kafka.listener.auto-startup=false",
+            "--spring.kafka.admin.auto-create=false",
+            "--outbox.relay.enabled=false",
+            "--logging.level.root=WARN"};
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private int bookId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(BookManagementApplication.class).run(BENCHMARK_ARGS);
+        bookService = context.getBean(BookService.class);
+        bookService.createNewBooks(newBooks(CATALOG_SIZE));
+        bookId = bookService.createNewBook(newBook(0)).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Book retrieveBookById() {
+        return bookService.retrieveBookById(bookId);
+    }
+
+    @Benchmark
+    public BookPage retrieveFirstPage() {
+        return bookService.retrieveAllBooks(0, 50);
+    }
+
+    @Benchmark
+    public Book updateExistingBook() {
+        return bookService.updateExistingBook(bookId, newBook(bookId));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int createNewBookOneByOne() {
+        int created = 0;
+        for (Book book : newBooks(BATCH_SIZE)) {
+            created += bookService.createNewBook(book).getId();
+        }
+        return created;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<BookBatchItem> createNewBooksInBatch() {
+        return bookService.createNewBooks(newBooks(BATCH_SIZE));
+    }
+
+    private static List<Book> newBooks(int count) {
+        return IntStream.range(0, count).mapToObj(BookServiceBenchmark::newBook).toList();
+    }
+
+    private static Book newBook(int index) {
+        return Book.builder().title("The Hobbit " + index).author("J. R. R. Tolkien").bookLanguage("English").price(40.50).build();
+    }
+}
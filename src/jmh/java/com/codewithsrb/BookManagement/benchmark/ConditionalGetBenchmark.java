@@ -0,0 +1,123 @@
+package com.codewithsrb.BookManagement.benchmark;
+
+import com.codewithsrb.BookManagement.BookManagementApplication;
+import com.codewithsrb.BookManagement.model.Book;
+import com.codewithsrb.BookManagement.service.BookService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * A client polling an unchanged page of 50 books and an unchanged book over real HTTP, once downloading the body every time
+ * and once revalidating with If-None-Match. Next to the polls per millisecond, the "bytes" counter reports the response
+ * body bytes received per millisecond, so dividing the two gives the bytes a single poll costs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class ConditionalGetBenchmark {
+
+    private static final String CREDENTIALS = "{\"email\": \"poll@email.com\", \"password\": \"polltest\"}";
+    private static final String ACCESS_TOKEN_PREFIX = "access_token: ";
+    private static final int CATALOG_SIZE = 1_000;
+    private static final int OK = 200;
+    private static final int NOT_MODIFIED = 304;
+
+    @Param({"false", "true"})
+    private boolean conditional;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private HttpRequest bookRequest;
+    private HttpRequest pageRequest;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Transfer {
+
+        public long bytes;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        context = new SpringApplicationBuilder(BookManagementApplication.class).run(
+                "--server.port=0",
+                "--spring.kafka.listener.auto-startup=false",
+                "--spring.kafka.admin.auto-create=false",
+                "--rate-limit.enabled=false",
+                "--outbox.relay.enabled=false",
+                "--logging.level.root=WARN");
+        context.getBean(BookService.class).createNewBooks(IntStream.range(0, CATALOG_SIZE)
+                .mapToObj(index -> Book.builder().title("The Hobbit " + index).author("J. R. R. Tolkien").bookLanguage("English").price(40.50).build())
+                .toList());
+
+        String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/books";
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        String authorization = "Bearer " + login(baseUrl);
+        bookRequest = pollRequest(baseUrl + "/1", authorization);
+        pageRequest = pollRequest(baseUrl + "?after=500&limit=50", authorization);
+    }
+
+    private HttpRequest pollRequest(String url, String authorization) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).header("Authorization", authorization).build();
+        if (!conditional) {
+            return request;
+        }
+        String eTag = httpClient.send(request, BodyHandlers.discarding()).headers().firstValue("ETag")
+                .orElseThrow(() -> new IllegalStateException("No ETag returned for " + url));
+        return HttpRequest.newBuilder(URI.create(url)).header("Authorization", authorization).header("If-None-Match", eTag).build();
+    }
+
+    private String login(String baseUrl) throws IOException, InterruptedException {
+        httpClient.send(jsonPost(baseUrl + "/register"), BodyHandlers.discarding());
+        String loginResponse = httpClient.send(jsonPost(baseUrl + "/login"), BodyHandlers.ofString()).body();
+        JsonNode data = new ObjectMapper().readTree(loginResponse).get("data");
+        return data.get(1).asText().substring(ACCESS_TOKEN_PREFIX.length());
+    }
+
+    private static HttpRequest jsonPost(String url) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(CREDENTIALS))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int pollBookById(Transfer transfer) throws IOException, InterruptedException {
+        return poll(bookRequest, transfer);
+    }
+
+    @Benchmark
+    public int pollBooksPage(Transfer transfer) throws IOException, InterruptedException {
+        return poll(pageRequest, transfer);
+    }
+
+    private int poll(HttpRequest request, Transfer transfer) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = httpClient.send(request, BodyHandlers.ofByteArray());
+        int expectedStatus = conditional ? NOT_MODIFIED : OK;
+        if (response.statusCode() != expectedStatus) {
+            throw new IllegalStateException("GET " + request.uri().getPath() + " answered " + response.statusCode());
+        }
+        transfer.bytes += response.body().length;
+        return response.statusCode();
+    }
+}
@@ -0,0 +1,77 @@
+package com.codewithsrb.BookManagement.benchmark;
+
+import com.codewithsrb.BookManagement.controller.BookJsonResponseCache;
+import com.codewithsrb.BookManagement.model.Book;
+import com.codewithsrb.BookManagement.model.HttpResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.springframework.http.HttpStatus.OK;
+
+/**
+ * JSON rendering of the book responses with the same object mapper setup spring mvc uses, once building and rendering the whole
+ * response on every request as the controller does for most responses, and once splicing the kept JSON of the books as it does
+ * for the book reads. Run with -prof gc to compare the bytes allocated per response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HttpResponseJsonBenchmark {
+
+    @Param({"1", "50"})
+    private int bookCount;
+
+    private ObjectMapper objectMapper;
+    private HttpResponse httpResponse;
+    private List<Book> books;
+    private BookJsonResponseCache bookJsonResponseCache;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        books = IntStream.rangeClosed(1, bookCount)
+                .mapToObj(id -> Book.builder().id(id).title("The Hobbit " + id).author("J. R. R. Tolkien").bookLanguage("English").price(40.50).build())
+                .toList();
+        httpResponse = HttpResponse.builder()
+                .timeStamp(LocalDateTime.now().toString())
+                .statusCode(OK.value())
+                .httpStatus(OK)
+                .message("Successfully retrieved all books")
+                .data(books)
+                .build();
+        bookJsonResponseCache = new BookJsonResponseCache(objectMapper);
+        bookJsonResponseCache.ok("Successfully retrieved all books", books, null);
+    }
+
+    @Benchmark
+    public byte[] renderHttpResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(httpResponse);
+    }
+
+    @Benchmark
+    public byte[] buildAndRenderHttpResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(HttpResponse.builder()
+                .timeStamp(LocalDateTime.now().toString())
+                .statusCode(OK.value())
+                .httpStatus(OK)
+                .message(String.format("Successfully retrieved book with id: %s", bookCount))
+                .data(books)
+                .build());
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> spliceKeptBookJson() {
+        return bookJsonResponseCache.ok("Successfully retrieved book with id: " + bookCount, books, null);
+    }
+}
@@ -0,0 +1,108 @@
+package com.codewithsrb.BookManagement.benchmark;
+
+import com.codewithsrb.BookManagement.BookManagementApplication;
+import com.codewithsrb.BookManagement.model.Book;
+import com.codewithsrb.BookManagement.service.BookService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * Authenticated GET /books requests over real HTTP with the principal built from the token claims (jwt.stateless-principal=true)
+ * and loaded from the database (false), with the users cache on (caffeine) and off (none). The H2 statements prepared per request,
+ * counted by the hibernate statistics, are printed at the end of every trial next to the throughput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PrincipalLookupBenchmark {
+
+    private static final String CREDENTIALS = "{\"email\": \"principal@email.com\", \"password\": \"principaltest\"}";
+    private static final String ACCESS_TOKEN_PREFIX = "access_token: ";
+    private static final int CATALOG_SIZE = 1_000;
+    private static final int OK = 200;
+
+    @Param({"true", "false"})
+    private boolean statelessPrincipal;
+
+    @Param({"caffeine", "none"})
+    private String cacheType;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private HttpRequest pageRequest;
+    private Statistics statistics;
+    private final AtomicLong requests = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        context = new SpringApplicationBuilder(BookManagementApplication.class).run(
+                "--server.port=0",
+                "--jwt.stateless-principal=" + statelessPrincipal,
+                "--spring.cache.type=" + cacheType,
+                "--spring.jpa.properties.hibernate.generate_statistics=true",
+                "--rate-limit.enabled=false",
+                "--spring.kafka.listener.auto-startup=false",
+                "--spring.kafka.admin.auto-create=false",
+                "--outbox.relay.enabled=false",
+                "--logging.level.root=WARN");
+        context.getBean(BookService.class).createNewBooks(IntStream.range(0, CATALOG_SIZE)
+                .mapToObj(index -> Book.builder().title("The Hobbit " + index).author("J. R. R. Tolkien").bookLanguage("English").price(40.50).build())
+                .toList());
+
+        String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/books";
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        String authorization = "Bearer " + login(baseUrl);
+        pageRequest = HttpRequest.newBuilder(URI.create(baseUrl + "?after=500&limit=50")).header("Authorization", authorization).build();
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    private String login(String baseUrl) throws IOException, InterruptedException {
+        httpClient.send(jsonPost(baseUrl + "/register"), BodyHandlers.discarding());
+        String loginResponse = httpClient.send(jsonPost(baseUrl + "/login"), BodyHandlers.ofString()).body();
+        JsonNode data = new ObjectMapper().readTree(loginResponse).get("data");
+        return data.get(1).asText().substring(ACCESS_TOKEN_PREFIX.length());
+    }
+
+    private static HttpRequest jsonPost(String url) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(CREDENTIALS))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.printf("%nstateless-principal=%s cache=%s: %.2f statements per request over %d requests%n", statelessPrincipal, cacheType,
+                (double) statistics.getPrepareStatementCount() / requests.get(), requests.get());
+        context.close();
+    }
+
+    @Benchmark
+    public int getBooksPage() throws IOException, InterruptedException {
+        int status = httpClient.send(pageRequest, BodyHandlers.discarding()).statusCode();
+        if (status != OK) {
+            throw new IllegalStateException("GET /books answered " + status);
+        }
+        requests.incrementAndGet();
+        return status;
+    }
+}
@@ -0,0 +1,64 @@
+package com.codewithsrb.BookManagement.benchmark;
+
+import com.codewithsrb.BookManagement.configuration.RateLimitProperties;
+import com.codewithsrb.BookManagement.security.RequestRateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Tokens taken from the rate limiter by 8 threads at once, all for the same user, where every thread updates the same bucket,
+ * and spread over a million users, where the buckets are created, looked up and evicted.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class RequestRateLimiterBenchmark {
+
+    private static final int USERS = 1_000_000;
+
+    @Param({"1", "1000000"})
+    private int users;
+
+    private RequestRateLimiter requestRateLimiter;
+    private MockHttpServletRequest request;
+    private List<GrantedAuthority> authorities;
+    private String[] subjects;
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+
+        private final SplittableRandom random = new SplittableRandom();
+    }
+
+    @Setup
+    public void setUp() {
+        RateLimitProperties.Limit limit = new RateLimitProperties.Limit();
+        limit.setCapacity(100);
+        limit.setPerSecond(50);
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setMaxBuckets(USERS);
+        properties.setLimits(Map.of("ROLE_USER", limit));
+        requestRateLimiter = new RequestRateLimiter(properties, new SimpleMeterRegistry());
+        request = new MockHttpServletRequest("GET", "/books");
+        authorities = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+        subjects = IntStream.range(0, users).mapToObj(user -> "user" + user + "@email.com").toArray(String[]::new);
+    }
+
+    @Benchmark
+    public long acquire(ThreadState threadState) {
+        return requestRateLimiter.acquire(request, subjects[threadState.random.nextInt(subjects.length)], authorities);
+    }
+}
@@ -0,0 +1,107 @@
+package com.codewithsrb.BookManagement.benchmark;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.codewithsrb.BookManagement.model.HttpResponse;
+import com.codewithsrb.BookManagement.model.UserDetailsImpl;
+import com.codewithsrb.BookManagement.model.UserInfo;
+import com.codewithsrb.BookManagement.model.VerifiedToken;
+import com.codewithsrb.BookManagement.provider.TokenProvider;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletResponse;
+import util.ExceptionUtils;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import static com.auth0.jwt.algorithms.Algorithm.HMAC512;
+import static org.springframework.http.HttpStatus.UNAUTHORIZED;
+
+/**
+ * Access token creation and verification, the uncached verification is the work the verified token cache saves.
+ * A token with a forged signature is rejected once through the verifier, which throws, and then from the rejected token cache.
+ * The error written for a rejected token is compared with serializing the error response through a new object mapper.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenProviderBenchmark {
+
+    private static final String SECRET = "benchmarksecretbenchmarksecretbenchmarksecret";
+    private static final String ISSUER = "CODE_WITH_SRB_LLC";
+
+    private TokenProvider tokenProvider;
+    private JWTVerifier jwtVerifier;
+    private UserDetailsImpl userDetails;
+    private String token;
+    private String forgedToken;
+
+    @Setup
+    public void setUp() {
+        tokenProvider = new TokenProvider(SECRET, true, null);
+        jwtVerifier = JWT.require(HMAC512(SECRET)).withIssuer(ISSUER).build();
+        userDetails = new UserDetailsImpl(UserInfo.builder()
+                .email("benchmark@email.com")
+                .password("benchmark")
+                .role("ROLE_USER")
+                .build());
+        token = tokenProvider.createAccessToken(userDetails);
+        forgedToken = token.substring(0, token.lastIndexOf('.') + 1) + "Zm9yZ2Vk";
+        tokenProvider.verifyToken(forgedToken);
+    }
+
+    @Benchmark
+    public String createAccessToken() {
+        return tokenProvider.createAccessToken(userDetails);
+    }
+
+    @Benchmark
+    public VerifiedToken verifyCachedToken() {
+        return tokenProvider.verifyToken(token);
+    }
+
+    @Benchmark
+    public DecodedJWT verifyUncachedToken() {
+        return jwtVerifier.verify(token);
+    }
+
+    @Benchmark
+    public VerifiedToken rejectRepeatedForgedToken() {
+        return tokenProvider.verifyToken(forgedToken);
+    }
+
+    @Benchmark
+    public Object rejectForgedTokenThroughVerifier() {
+        try {
+            return jwtVerifier.verify(forgedToken);
+        } catch (JWTVerificationException exception) {
+            return exception;
+        }
+    }
+
+    @Benchmark
+    public MockHttpServletResponse writeRejectedTokenError() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ExceptionUtils.processRejectedToken(response, VerifiedToken.Rejection.INVALID);
+        return response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse writeErrorWithNewObjectMapper() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        new ObjectMapper().writeValue(response.getOutputStream(), HttpResponse.builder()
+                .timeStamp(LocalDateTime.now().toString())
+                .reason("The access token is invalid.")
+                .statusCode(UNAUTHORIZED.value())
+                .httpStatus(UNAUTHORIZED)
+                .build());
+        return response;
+    }
+}
@@ -1,15 +1,21 @@
 package com.codewithsrb.BookManagement.common;
 
+import com.codewithsrb.BookManagement.configuration.PasswordHashingProperties;
+import com.codewithsrb.BookManagement.configuration.RateLimitProperties;
+import com.codewithsrb.BookManagement.security.BoundedPasswordEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 @Configuration
+@EnableConfigurationProperties({ PasswordHashingProperties.class, RateLimitProperties.class})
 public class CommonConfig {
 
     @Bean
-    PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    PasswordEncoder passwordEncoder(PasswordHashingProperties passwordHashingProperties, MeterRegistry meterRegistry) {
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(passwordHashingProperties.getStrength()), passwordHashingProperties, meterRegistry);
     }
 }
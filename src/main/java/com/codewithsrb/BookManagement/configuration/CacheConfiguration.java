@@ -0,0 +1,34 @@
+package com.codewithsrb.BookManagement.configuration;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Enables the caffeine backed caches, size, expiry and statistics are configured with spring.cache.caffeine.spec.
+ * The cache manager is made transaction aware, an eviction inside a transaction happens once it committed. Evicted before,
+ * a concurrent read could still find the old row and cache it again for the whole expiry.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfiguration {
+
+    public static final String BOOKS_CACHE = "books";
+    public static final String USERS_CACHE = "users";
+
+    @Bean
+    static BeanPostProcessor transactionAwareCacheManager() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof CacheManager cacheManager && !(bean instanceof TransactionAwareCacheManagerProxy)) {
+                    return new TransactionAwareCacheManagerProxy(cacheManager);
+                }
+                return bean;
+            }
+        };
+    }
+}
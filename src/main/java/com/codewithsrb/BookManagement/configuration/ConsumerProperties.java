@@ -0,0 +1,14 @@
+package com.codewithsrb.BookManagement.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties("kafka.consumer")
+@Getter
+@Setter
+public class ConsumerProperties {
+
+    private boolean parallel = true;
+    private int workers = Runtime.getRuntime().availableProcessors();
+}
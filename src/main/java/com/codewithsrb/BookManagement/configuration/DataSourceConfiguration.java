@@ -0,0 +1,72 @@
+package com.codewithsrb.BookManagement.configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Sends read-only transactions to the read replicas and everything else to the primary spring.datasource.
+ * The connection is taken lazily, on the first statement, once the transaction has marked it read-only or not.
+ * Every pool publishes the hikaricp metrics tagged with its name, primary or replica-n, next to the read connections
+ * counted by {@link ReadReplicaDataSource}.
+ */
+@Configuration
+@ConditionalOnProperty(value = "read-replicas.enabled")
+@EnableConfigurationProperties({ ReadReplicaProperties.class})
+public class DataSourceConfiguration {
+
+    private static final String PRIMARY_POOL = "primary";
+    private static final String REPLICA_POOL = "replica-%d";
+
+    @Bean(destroyMethod = "close")
+    HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties, MeterRegistry meterRegistry) {
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName(PRIMARY_POOL);
+        dataSource.setMetricRegistry(meterRegistry);
+        return dataSource;
+    }
+
+    @Bean(destroyMethod = "close")
+    ReadReplicaDataSource readReplicaDataSource(HikariDataSource primaryDataSource, ReadReplicaProperties readReplicaProperties,
+                                                DataSourceProperties dataSourceProperties, MeterRegistry meterRegistry) {
+        if (readReplicaProperties.getReplicas().isEmpty()) {
+            throw new IllegalArgumentException("read-replicas.replicas needs at least one replica when read-replicas.enabled is set");
+        }
+        long connectionTimeoutMs = readReplicaProperties.getConnectionTimeout().toMillis();
+        List<HikariDataSource> replicaPools = IntStream.range(0, readReplicaProperties.getReplicas().size())
+                .mapToObj(index -> {
+                    ReadReplicaProperties.Replica replica = readReplicaProperties.getReplicas().get(index);
+                    HikariDataSource dataSource = new HikariDataSource();
+                    dataSource.setPoolName(String.format(REPLICA_POOL, index + 1));
+                    dataSource.setJdbcUrl(replica.getUrl());
+                    dataSource.setUsername(replica.getUsername() != null ? replica.getUsername() : dataSourceProperties.determineUsername());
+                    dataSource.setPassword(replica.getPassword() != null ? replica.getPassword() : dataSourceProperties.determinePassword());
+                    dataSource.setReadOnly(true);
+                    // a replica which is down fails fast and is ejected instead of holding the request for the default 30 seconds
+                    dataSource.setConnectionTimeout(connectionTimeoutMs);
+                    dataSource.setInitializationFailTimeout(-1);
+                    dataSource.setMetricRegistry(meterRegistry);
+                    return dataSource;
+                })
+                .toList();
+        return new ReadReplicaDataSource(primaryDataSource, replicaPools, connectionTimeoutMs, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    DataSource dataSource(HikariDataSource primaryDataSource, ReadReplicaDataSource readReplicaDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(readReplicaDataSource);
+        return dataSource;
+    }
+}
@@ -0,0 +1,18 @@
+package com.codewithsrb.BookManagement.configuration;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Enables the micrometer @Timed annotation on spring beans.
+ */
+@Configuration
+public class MetricsConfiguration {
+
+    @Bean
+    TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
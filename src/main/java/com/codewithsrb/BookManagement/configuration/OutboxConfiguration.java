@@ -0,0 +1,11 @@
+package com.codewithsrb.BookManagement.configuration;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties({ OutboxProperties.class})
+public class OutboxConfiguration {
+}
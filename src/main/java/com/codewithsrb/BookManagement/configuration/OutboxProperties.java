@@ -0,0 +1,15 @@
+package com.codewithsrb.BookManagement.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties("outbox.relay")
+@Getter
+@Setter
+public class OutboxProperties {
+
+    private boolean enabled = true;
+    private int batchSize = 500;
+    private int maxAttempts = 3;
+}
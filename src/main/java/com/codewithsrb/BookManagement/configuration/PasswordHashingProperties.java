@@ -0,0 +1,18 @@
+package com.codewithsrb.BookManagement.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties("password-hashing")
+@Getter
+@Setter
+public class PasswordHashingProperties {
+
+    private int strength = 10;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int queueCapacity = 64;
+    private Duration maxWait = Duration.ofSeconds(2);
+}
@@ -0,0 +1,45 @@
+package com.codewithsrb.BookManagement.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@ConfigurationProperties("rate-limit")
+@Getter
+@Setter
+public class RateLimitProperties {
+
+    /**
+     * Key of the limit for the public routes, which are limited per client address instead of per user.
+     */
+    public static final String ANONYMOUS = "anonymous";
+
+    private boolean enabled = true;
+    private long maxBuckets = 1_000_000;
+    private Duration idleTimeout = Duration.ofMinutes(10);
+    private Map<String, Limit> limits = new HashMap<>();
+    private List<Route> routes = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Limit {
+
+        private int capacity;
+        private double perSecond;
+    }
+
+    @Getter
+    @Setter
+    public static class Route {
+
+        private String path;
+        private String method;
+        private Map<String, Limit> limits = new HashMap<>();
+    }
+}
@@ -0,0 +1,13 @@
+package com.codewithsrb.BookManagement.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties("read-model")
+@Getter
+@Setter
+public class ReadModelProperties {
+
+    private boolean enabled = false;
+}
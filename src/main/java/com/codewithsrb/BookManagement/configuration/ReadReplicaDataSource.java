@@ -0,0 +1,151 @@
+package com.codewithsrb.BookManagement.configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The pool of replica connection pools read-only transactions read from. Every connection is taken from the next healthy replica in turn,
+ * a replica failing to hand out a connection or its health check is ejected until a health check passes again.
+ * A replica whose pool is merely exhausted is skipped for that connection but not ejected, the database behind it is fine.
+ * The healthy replicas are kept as an immutable list replaced on every ejection and recovery, so the reads are spread evenly over them.
+ * With no healthy replica the reads fall back to the primary.
+ * The connections handed out are counted as datasource.read.connections tagged by the pool, the health of every replica is reported
+ * as datasource.replica.healthy.
+ */
+@Slf4j
+public class ReadReplicaDataSource extends AbstractDataSource implements Closeable {
+
+    private static final String PRIMARY = "primary";
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final Counter primaryConnections;
+    private final int validationTimeoutSeconds;
+    private final AtomicInteger next = new AtomicInteger();
+    private volatile List<Replica> healthyReplicas;
+
+    private static class Replica {
+
+        private final HikariDataSource dataSource;
+        private final Counter connections;
+        private volatile boolean healthy = true;
+
+        Replica(HikariDataSource dataSource, Counter connections) {
+            this.dataSource = dataSource;
+            this.connections = connections;
+        }
+    }
+
+    public ReadReplicaDataSource(DataSource primary, List<HikariDataSource> replicaPools, long connectionTimeoutMs, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.primaryConnections = connectionCounter(PRIMARY, meterRegistry);
+        this.validationTimeoutSeconds = (int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(connectionTimeoutMs));
+        this.replicas = replicaPools.stream()
+                .map(pool -> new Replica(pool, connectionCounter(pool.getPoolName(), meterRegistry)))
+                .toList();
+        this.healthyReplicas = replicas;
+        replicas.forEach(replica -> Gauge.builder("datasource.replica.healthy", replica, healthy -> healthy.healthy ? 1 : 0)
+                .description("Whether the replica receives reads")
+                .tag("pool", replica.dataSource.getPoolName())
+                .register(meterRegistry));
+    }
+
+    private static Counter connectionCounter(String pool, MeterRegistry meterRegistry) {
+        return Counter.builder("datasource.read.connections")
+                .description("Connections handed out to read-only transactions")
+                .tag("pool", pool)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        List<Replica> candidates = healthyReplicas;
+        int start = next.getAndIncrement();
+        for (int attempt = 0; attempt < candidates.size(); attempt++) {
+            Replica replica = candidates.get(Math.floorMod(start + attempt, candidates.size()));
+            try {
+                Connection connection = replica.dataSource.getConnection();
+                replica.connections.increment();
+                return connection;
+            } catch (SQLException exception) {
+                if (!isPoolExhausted(exception)) {
+                    eject(replica, exception.getMessage());
+                }
+            }
+        }
+        primaryConnections.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLException("Replica connections are taken with the configured credentials only");
+    }
+
+    /**
+     * Validates a connection of every replica, ejecting the failing ones and bringing the recovered ones back.
+     */
+    @Scheduled(fixedDelayString = "${read-replicas.health-check-interval-ms:5000}")
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection()) {
+                if (!connection.isValid(validationTimeoutSeconds)) {
+                    eject(replica, "connection is not valid");
+                } else {
+                    recover(replica);
+                }
+            } catch (SQLException exception) {
+                if (!isPoolExhausted(exception)) {
+                    eject(replica, exception.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Hikari times out with a SQLTransientConnectionException both when every connection is in use and when no new one can be made,
+     * only the latter carries the connection failure as its cause.
+     */
+    private static boolean isPoolExhausted(SQLException exception) {
+        return exception instanceof SQLTransientConnectionException && exception.getCause() == null;
+    }
+
+    private synchronized void eject(Replica replica, String reason) {
+        if (replica.healthy) {
+            replica.healthy = false;
+            updateHealthyReplicas();
+            log.warn("Replica {} is ejected from reads: {}", replica.dataSource.getPoolName(), reason);
+        }
+    }
+
+    private synchronized void recover(Replica replica) {
+        if (!replica.healthy) {
+            replica.healthy = true;
+            updateHealthyReplicas();
+            log.info("Replica {} is healthy again and receives reads", replica.dataSource.getPoolName());
+        }
+    }
+
+    private void updateHealthyReplicas() {
+        healthyReplicas = replicas.stream().filter(replica -> replica.healthy).toList();
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+}
@@ -0,0 +1,29 @@
+package com.codewithsrb.BookManagement.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@ConfigurationProperties("read-replicas")
+@Getter
+@Setter
+public class ReadReplicaProperties {
+
+    private boolean enabled = false;
+    private long healthCheckIntervalMs = 5000;
+    private Duration connectionTimeout = Duration.ofSeconds(1);
+    private List<Replica> replicas = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Replica {
+
+        private String url;
+        private String username;
+        private String password;
+    }
+}
@@ -0,0 +1,24 @@
+package com.codewithsrb.BookManagement.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties("kafka.retry")
+@Getter
+@Setter
+public class RetryProperties {
+
+    private int attempts = 3;
+    private Duration initialDelay = Duration.ofSeconds(1);
+    private double multiplier = 4;
+
+    /**
+     * Delay before the given retry attempt, starting at the initial delay for the first one and growing by the multiplier.
+     */
+    public Duration delayFor(int attempt) {
+        return Duration.ofMillis((long) (initialDelay.toMillis() * Math.pow(multiplier, attempt - 1)));
+    }
+}
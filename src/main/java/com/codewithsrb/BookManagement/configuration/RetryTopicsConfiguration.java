@@ -0,0 +1,119 @@
+package com.codewithsrb.BookManagement.configuration;
+
+import com.codewithsrb.BookManagement.service.KafkaConsumerService;
+import org.apache.avro.specific.SpecificRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.KafkaListenerConfigurer;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistrar;
+import org.springframework.kafka.config.KafkaListenerEndpoint;
+import org.springframework.kafka.listener.BatchAcknowledgingMessageListener;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.TopicPartitionOffset;
+import org.springframework.kafka.support.converter.MessageConverter;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Registers one listener container per retry topic, a record waiting for its delay pauses only the container of its own attempt.
+ */
+@Configuration
+public class RetryTopicsConfiguration implements KafkaListenerConfigurer {
+
+    private final Topics topics;
+    private final RetryProperties retryProperties;
+    private final KafkaConsumerService kafkaConsumerService;
+    private final String groupId;
+
+    public RetryTopicsConfiguration(Topics topics, RetryProperties retryProperties, KafkaConsumerService kafkaConsumerService,
+                                    @Value("${spring.kafka.consumer.group-id}") String groupId) {
+        this.topics = topics;
+        this.retryProperties = retryProperties;
+        this.kafkaConsumerService = kafkaConsumerService;
+        this.groupId = groupId;
+    }
+
+    @Override
+    public void configureKafkaListeners(KafkaListenerEndpointRegistrar registrar) {
+        for (int attempt = 1; attempt <= retryProperties.getAttempts(); attempt++) {
+            registrar.registerEndpoint(new RetryTopicEndpoint("book-retry-" + attempt, groupId, topics.getRetryTopic(attempt), kafkaConsumerService));
+        }
+    }
+
+    private static class RetryTopicEndpoint implements KafkaListenerEndpoint {
+
+        private final String id;
+        private final String groupId;
+        private final String topic;
+        private final KafkaConsumerService kafkaConsumerService;
+
+        private RetryTopicEndpoint(String id, String groupId, String topic, KafkaConsumerService kafkaConsumerService) {
+            this.id = id;
+            this.groupId = groupId;
+            this.topic = topic;
+            this.kafkaConsumerService = kafkaConsumerService;
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public String getGroupId() {
+            return groupId;
+        }
+
+        @Override
+        public String getGroup() {
+            return null;
+        }
+
+        @Override
+        public Collection<String> getTopics() {
+            return List.of(topic);
+        }
+
+        @Override
+        public TopicPartitionOffset[] getTopicPartitionsToAssign() {
+            return new TopicPartitionOffset[0];
+        }
+
+        @Override
+        public Pattern getTopicPattern() {
+            return null;
+        }
+
+        @Override
+        public String getClientIdPrefix() {
+            return null;
+        }
+
+        @Override
+        public Integer getConcurrency() {
+            return null;
+        }
+
+        @Override
+        public Boolean getAutoStartup() {
+            return null;
+        }
+
+        @Override
+        public Boolean getBatchListener() {
+            return true;
+        }
+
+        @Override
+        public boolean isSplitIterables() {
+            return true;
+        }
+
+        @Override
+        public void setupListenerContainer(MessageListenerContainer listenerContainer, MessageConverter messageConverter) {
+            listenerContainer.setupMessageListener((BatchAcknowledgingMessageListener<SpecificRecord, SpecificRecord>) kafkaConsumerService::retry);
+        }
+    }
+}
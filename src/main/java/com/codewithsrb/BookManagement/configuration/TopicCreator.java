@@ -1,8 +1,13 @@
 package com.codewithsrb.BookManagement.configuration;
 
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.config.TopicConfig;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.KafkaAdmin;
+
+import java.util.Map;
+import java.util.stream.IntStream;
 
 /**
  * Configuration class responsible for creating the topics.
@@ -11,18 +16,34 @@ import org.springframework.context.annotation.Configuration;
 public class TopicCreator {
 
     private final Topics topics;
+    private final RetryProperties retryProperties;
 
-    public TopicCreator(Topics topics) {
+    public TopicCreator(Topics topics, RetryProperties retryProperties) {
         this.topics = topics;
+        this.retryProperties = retryProperties;
     }
 
+    /**
+     * The input/output topic is compacted, it keeps the latest event per book so consumers can rebuild the current state from it.
+     */
     @Bean
     NewTopic createInputOutputTopic() {
-        return new NewTopic(topics.getInputOutputTopic(), 1, (short)1);
+        return new NewTopic(topics.getInputOutputTopic(), 1, (short)1)
+                .configs(Map.of(TopicConfig.CLEANUP_POLICY_CONFIG, TopicConfig.CLEANUP_POLICY_COMPACT));
     }
 
     @Bean
     NewTopic createErrorTopic() {
         return new NewTopic(topics.getErrorTopic(), 1, (short)1);
     }
+
+    /**
+     * One topic per retry attempt, so every record in a retry topic waits for the same delay.
+     */
+    @Bean
+    KafkaAdmin.NewTopics createRetryTopics() {
+        return new KafkaAdmin.NewTopics(IntStream.rangeClosed(1, retryProperties.getAttempts())
+                .mapToObj(attempt -> new NewTopic(topics.getRetryTopic(attempt), 1, (short)1))
+                .toArray(NewTopic[]::new));
+    }
 }
@@ -11,4 +11,8 @@ public class Topics {
 
     private String inputOutputTopic;
     private String errorTopic;
+
+    public String getRetryTopic(int attempt) {
+        return inputOutputTopic + "-retry-" + attempt;
+    }
 }
@@ -4,6 +4,6 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
-@EnableConfigurationProperties({ Topics.class})
+@EnableConfigurationProperties({ Topics.class, ConsumerProperties.class, ReadModelProperties.class, RetryProperties.class})
 public class TopicsConfiguration {
 }
@@ -0,0 +1,21 @@
+package com.codewithsrb.BookManagement.configuration;
+
+import com.codewithsrb.BookManagement.controller.BookAvroHttpMessageConverter;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Adds application/avro to the formats the responses are negotiated in. It goes after the JSON, CBOR and Smile converters,
+ * a client accepting anything keeps getting JSON.
+ */
+@Configuration
+public class WebConfiguration implements WebMvcConfigurer {
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new BookAvroHttpMessageConverter());
+    }
+}
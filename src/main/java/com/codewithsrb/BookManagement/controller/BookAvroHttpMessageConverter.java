@@ -0,0 +1,114 @@
+package com.codewithsrb.BookManagement.controller;
+
+import com.codewithsrb.BookManagement.model.Book;
+import com.codewithsrb.BookManagement.model.BookResponse;
+import com.codewithsrb.BookManagement.schema.BookKey;
+import com.codewithsrb.BookManagement.schema.BookValue;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificDatumReader;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Writes the books of a response as application/avro, every book as its BookKey followed by its BookValue in Avro binary,
+ * the same schemas the book topic uses. The cursor of the next page is sent in the X-Next-Cursor header, the message is not sent.
+ * Only {@link BookResponse}s are written, any other response is negotiated among the other formats or answered 406.
+ * Requests are still read as JSON.
+ */
+public class BookAvroHttpMessageConverter extends AbstractHttpMessageConverter<BookResponse> {
+
+    public static final MediaType APPLICATION_AVRO = MediaType.valueOf("application/avro");
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final String NONE = "None";
+    private static final DatumWriter<BookKey> KEY_WRITER = new SpecificDatumWriter<>(BookKey.class);
+    private static final DatumWriter<BookValue> VALUE_WRITER = new SpecificDatumWriter<>(BookValue.class);
+
+    public BookAvroHttpMessageConverter() {
+        super(APPLICATION_AVRO);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return BookResponse.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected BookResponse readInternal(Class<? extends BookResponse> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Requests are not read as application/avro", inputMessage);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(BookResponse bookResponse, HttpOutputMessage outputMessage) throws IOException {
+        List<?> data = Objects.requireNonNullElse(bookResponse.getData(), List.of());
+        if (!data.stream().allMatch(Book.class::isInstance)) {
+            throw new HttpMessageNotWritableException("Only books are written as application/avro");
+        }
+        if (Objects.nonNull(bookResponse.getNextCursor())) {
+            outputMessage.getHeaders().set(NEXT_CURSOR_HEADER, bookResponse.getNextCursor().toString());
+        }
+        writeBooks((List<Book>) data, outputMessage.getBody());
+    }
+
+    public static void writeBooks(List<Book> books, OutputStream outputStream) throws IOException {
+        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(outputStream, null);
+        for (Book book : books) {
+            KEY_WRITER.write(new BookKey(book.getId()), encoder);
+            VALUE_WRITER.write(new BookValue(
+                    Objects.requireNonNullElse(book.getTitle(), NONE),
+                    Objects.requireNonNullElse(book.getAuthor(), NONE),
+                    Objects.requireNonNullElse(book.getBookLanguage(), NONE),
+                    book.getPrice(),
+                    book.getVersion()), encoder);
+        }
+        encoder.flush();
+    }
+
+    /**
+     * Reads the books of an application/avro response back, for clients in the JVM.
+     */
+    public static List<Book> readBooks(InputStream inputStream) throws IOException {
+        DatumReader<BookKey> keyReader = new SpecificDatumReader<>(BookKey.class);
+        DatumReader<BookValue> valueReader = new SpecificDatumReader<>(BookValue.class);
+        BinaryDecoder decoder = DecoderFactory.get().binaryDecoder(inputStream, null);
+        List<Book> books = new ArrayList<>();
+        BookKey key = null;
+        BookValue value = null;
+        while (!decoder.isEnd()) {
+            key = keyReader.read(key, decoder);
+            value = valueReader.read(value, decoder);
+            books.add(Book.builder()
+                    .id(key.getBookId())
+                    .title(value.getTitle().toString())
+                    .author(value.getAuthor().toString())
+                    .bookLanguage(value.getBookLanguage().toString())
+                    .price(value.getPrice())
+                    .version(value.getVersion())
+                    .build());
+        }
+        return books;
+    }
+}
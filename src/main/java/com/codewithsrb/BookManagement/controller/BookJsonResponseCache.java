@@ -0,0 +1,167 @@
+package com.codewithsrb.BookManagement.controller;
+
+import com.codewithsrb.BookManagement.model.Book;
+import com.codewithsrb.BookManagement.model.BookChangedEvent;
+import com.codewithsrb.BookManagement.model.HttpResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.InvalidMimeTypeException;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.context.request.WebRequest;
+import util.TimeStampUtils;
+
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Successful JSON book responses spliced together from the JSON of every book, rendered once and kept until the book changes,
+ * instead of running jackson over the whole {@link HttpResponse} on every read. The bytes are the same the JSON converter writes,
+ * except for the time stamp which is rendered once per millisecond.
+ * A kept rendering is used only while it was rendered from a book equal to the one read, a book changed anywhere is never sent stale.
+ */
+@Component
+public class BookJsonResponseCache {
+
+    private static final int MAX_BOOKS = 100_000;
+    private static final int MAX_ACCEPT_HEADERS = 64;
+    private static final List<MediaType> PRODUCIBLE_TYPES = List.of(MediaType.APPLICATION_JSON, MediaType.valueOf("application/x-jackson-smile"),
+            MediaType.APPLICATION_CBOR, BookAvroHttpMessageConverter.APPLICATION_AVRO);
+
+    private static final byte[] TIME_STAMP = bytes("{\"timeStamp\":\"");
+    private static final byte[] MESSAGE = bytes("\",\"statusCode\":200,\"httpStatus\":\"OK\",\"message\":\"");
+    private static final byte[] DATA = bytes("\",\"reason\":null,\"data\":[");
+    private static final byte[] NEXT_CURSOR = bytes("],\"nextCursor\":");
+    private static final byte[] NO_NEXT_CURSOR = bytes("],\"nextCursor\":null}");
+
+    private final ObjectMapper objectMapper;
+    private final Cache<Integer, RenderedBook> renderedBooks = Caffeine.newBuilder()
+            .maximumSize(MAX_BOOKS)
+            .build();
+    private final Map<String, Boolean> jsonByAcceptHeader = new ConcurrentHashMap<>();
+
+    public BookJsonResponseCache(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    private record RenderedBook(Book book, byte[] json) {
+    }
+
+    /**
+     * True when the response is negotiated as JSON, the same way spring mvc picks among the JSON, Smile, CBOR and Avro converters.
+     */
+    public boolean isJsonAccepted(WebRequest webRequest) {
+        String accept = webRequest.getHeader(HttpHeaders.ACCEPT);
+        if (Objects.isNull(accept)) {
+            return true;
+        }
+        Boolean json = jsonByAcceptHeader.get(accept);
+        if (Objects.isNull(json)) {
+            json = negotiatesJson(accept);
+            if (jsonByAcceptHeader.size() < MAX_ACCEPT_HEADERS) {
+                jsonByAcceptHeader.put(accept, json);
+            }
+        }
+        return json;
+    }
+
+    private static boolean negotiatesJson(String accept) {
+        List<MediaType> acceptedTypes;
+        try {
+            acceptedTypes = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMimeTypeException e) {
+            return false;
+        }
+        MimeTypeUtils.sortBySpecificity(acceptedTypes);
+        for (MediaType acceptedType : acceptedTypes) {
+            if (acceptedType.getQualityValue() > 0 && PRODUCIBLE_TYPES.stream().anyMatch(acceptedType::isCompatibleWith)) {
+                return acceptedType.isCompatibleWith(MediaType.APPLICATION_JSON);
+            }
+        }
+        return false;
+    }
+
+    public ResponseEntity<byte[]> ok(String message, List<Book> books, Integer nextCursor) {
+        byte[] time = TimeStampUtils.currentTimeStamp();
+        byte[] quotedMessage = JsonStringEncoder.getInstance().quoteAsUTF8(message);
+        byte[][] bookJson = new byte[books.size()][];
+        int length = TIME_STAMP.length + time.length + MESSAGE.length + quotedMessage.length + DATA.length + Math.max(0, books.size() - 1);
+        for (int index = 0; index < books.size(); index++) {
+            bookJson[index] = render(books.get(index));
+            length += bookJson[index].length;
+        }
+        byte[] cursor = Objects.isNull(nextCursor) ? NO_NEXT_CURSOR : bytes(nextCursor + "}");
+        length += Objects.isNull(nextCursor) ? cursor.length : NEXT_CURSOR.length + cursor.length;
+
+        byte[] body = new byte[length];
+        int position = append(body, 0, TIME_STAMP);
+        position = append(body, position, time);
+        position = append(body, position, MESSAGE);
+        position = append(body, position, quotedMessage);
+        position = append(body, position, DATA);
+        for (int index = 0; index < bookJson.length; index++) {
+            if (index > 0) {
+                body[position++] = ',';
+            }
+            position = append(body, position, bookJson[index]);
+        }
+        if (Objects.nonNull(nextCursor)) {
+            position = append(body, position, NEXT_CURSOR);
+        }
+        append(body, position, cursor);
+
+        return ResponseEntity.ok()
+                .varyBy(HttpHeaders.ACCEPT)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    @TransactionalEventListener
+    public void onBookChanged(BookChangedEvent event) {
+        renderedBooks.invalidate(event.getBookId());
+    }
+
+    private byte[] render(Book book) {
+        RenderedBook renderedBook = renderedBooks.getIfPresent(book.getId());
+        if (Objects.nonNull(renderedBook) && renderedBook.book().equals(book)) {
+            return renderedBook.json();
+        }
+        try {
+            // a copy, the book read may be a managed entity changed later on
+            Book rendered = Book.builder()
+                    .id(book.getId())
+                    .title(book.getTitle())
+                    .author(book.getAuthor())
+                    .bookLanguage(book.getBookLanguage())
+                    .price(book.getPrice())
+                    .version(book.getVersion())
+                    .build();
+            byte[] json = objectMapper.writeValueAsBytes(rendered);
+            renderedBooks.put(book.getId(), new RenderedBook(rendered, json));
+            return json;
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int append(byte[] body, int position, byte[] bytes) {
+        System.arraycopy(bytes, 0, body, position, bytes.length);
+        return position + bytes.length;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(UTF_8);
+    }
+}
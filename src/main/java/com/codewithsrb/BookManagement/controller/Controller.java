@@ -2,21 +2,29 @@ package com.codewithsrb.BookManagement.controller;
 
 import com.codewithsrb.BookManagement.model.*;
 import com.codewithsrb.BookManagement.provider.TokenProvider;
+import com.codewithsrb.BookManagement.service.BookETagService;
+import com.codewithsrb.BookManagement.service.BookReadModelService;
+import com.codewithsrb.BookManagement.service.BookSearchService;
 import com.codewithsrb.BookManagement.service.BookService;
 import com.codewithsrb.BookManagement.service.UserDetailsServiceImpl;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.core.Authentication;
 import org.springframework.util.CollectionUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
 import static java.time.LocalDateTime.now;
 import static org.springframework.http.HttpStatus.CREATED;
@@ -28,13 +36,25 @@ import static org.springframework.security.authentication.UsernamePasswordAuthen
 @Slf4j
 public class Controller {
 
+    private static final String NDJSON_VALUE = "application/x-ndjson";
+
     private final BookService bookService;
+    private final BookSearchService bookSearchService;
+    private final BookReadModelService bookReadModelService;
+    private final BookETagService bookETagService;
+    private final BookJsonResponseCache bookJsonResponseCache;
     private final UserDetailsServiceImpl userDetailsServiceImpl;
     private final AuthenticationManager authenticationManager;
     private final TokenProvider tokenProvider;
 
-    public Controller(BookService bookService, UserDetailsServiceImpl userDetailsServiceImpl, AuthenticationManager authenticationManager, TokenProvider tokenProvider) {
+    public Controller(BookService bookService, BookSearchService bookSearchService, BookReadModelService bookReadModelService, BookETagService bookETagService,
+                      BookJsonResponseCache bookJsonResponseCache, UserDetailsServiceImpl userDetailsServiceImpl, AuthenticationManager authenticationManager,
+                      TokenProvider tokenProvider) {
         this.bookService = bookService;
+        this.bookSearchService = bookSearchService;
+        this.bookReadModelService = bookReadModelService;
+        this.bookETagService = bookETagService;
+        this.bookJsonResponseCache = bookJsonResponseCache;
         this.userDetailsServiceImpl = userDetailsServiceImpl;
         this.authenticationManager = authenticationManager;
         this.tokenProvider = tokenProvider;
@@ -80,35 +100,95 @@ public class Controller {
         return ((UserDetailsImpl)authentication.getPrincipal());
     }
 
+    /**
+     * The catalog ETag is taken before the page is read, so a page is never sent with an ETag newer than its content.
+     * A matching If-None-Match is answered with 304 without reading or rendering anything. A page sent as JSON is spliced together
+     * from the JSON kept for every book.
+     */
     @GetMapping()
-    public ResponseEntity<HttpResponse> retrieveAllBooks() {
-        List<Book> books = bookService.retrieveAllBooks();
+    public ResponseEntity<?> retrieveAllBooks(@RequestParam(value = "after", defaultValue = "0") int after,
+                                                         @RequestParam(value = "limit", defaultValue = "50") int limit,
+                                                         WebRequest webRequest) {
+        String eTag = bookETagService.catalogETag();
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        BookPage bookPage = bookReadModelService.isServing()
+                ? bookReadModelService.retrieveAllBooks(after, limit)
+                : bookService.retrieveAllBooks(after, limit);
+        List<Book> books = bookPage.getBooks();
 
         if(CollectionUtils.isEmpty(books)) {
-            return generateResponse("No book found", books, HttpStatus.OK);
+            return generateBookResponse("No book found", books, null, HttpStatus.OK);
         }
-        return generateResponse("Successfully retrieved all books", books, HttpStatus.OK);
+        if (bookJsonResponseCache.isJsonAccepted(webRequest)) {
+            return bookJsonResponseCache.ok("Successfully retrieved all books", books, bookPage.getNextCursor());
+        }
+        return generateBookResponse("Successfully retrieved all books", books, bookPage.getNextCursor(), HttpStatus.OK);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<HttpResponse> searchBooks(@RequestParam(value = "q") String query,
+                                                    @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        List<Book> books = bookSearchService.search(query, limit);
+
+        if(CollectionUtils.isEmpty(books)) {
+            return generateBookResponse(String.format("No book found for: %s", query), books, HttpStatus.OK);
+        }
+        return generateBookResponse(String.format("Successfully found %s books for: %s", books.size(), query), books, HttpStatus.OK);
+    }
+
+    @GetMapping(value = "/export", produces = NDJSON_VALUE)
+    public void exportAllBooks(HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON_VALUE);
+        bookService.exportAllBooks(response.getOutputStream());
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<HttpResponse> retrieveBookById(@PathVariable(value = "id") int id) {
-        Book book = bookService.retrieveBookById(id);
+    public ResponseEntity<?> retrieveBookById(@PathVariable(value = "id") int id, WebRequest webRequest) {
+        String knownETag = bookETagService.bookETag(id);
+        if (knownETag != null && webRequest.checkNotModified(knownETag)) {
+            return null;
+        }
+        Book book = bookReadModelService.isServing()
+                ? bookReadModelService.retrieveBookById(id)
+                : bookService.retrieveBookById(id);
         if(Objects.isNull(book)) {
-            return generateResponse(String.format("No book found for the id: %s", id), null, HttpStatus.OK);
+            return generateBookResponse(String.format("No book found for the id: %s", id), null, HttpStatus.OK);
+        }
+        String eTag = bookETagService.bookETag(book);
+        if (knownETag == null && eTag != null && webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        if (bookJsonResponseCache.isJsonAccepted(webRequest)) {
+            return bookJsonResponseCache.ok("Successfully retrieved book with id: " + id, List.of(book), null);
         }
-        return generateResponse(String.format("Successfully retrieved book with id: %s", id), List.of(book), HttpStatus.OK);
+        return generateBookResponse(String.format("Successfully retrieved book with id: %s", id), List.of(book), HttpStatus.OK);
     }
 
     @PostMapping()
     public ResponseEntity<HttpResponse> createNewBook(@RequestBody Book book) {
         Book createdBook = bookService.createNewBook(book);
-        return generateResponse(String.format("Successfully created a new book with id: %s", createdBook.getId()), List.of(createdBook), HttpStatus.CREATED);
+        return generateBookResponse(String.format("Successfully created a new book with id: %s", createdBook.getId()), List.of(createdBook), HttpStatus.CREATED);
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<HttpResponse> createNewBooks(@RequestBody List<Book> books) {
+        List<BookBatchItem> results = bookService.createNewBooks(books);
+        long created = results.stream().filter(result -> result.getId() != null).count();
+        return generateResponse(String.format("Successfully created %s of %s books", created, results.size()), results, HttpStatus.CREATED);
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<HttpResponse> updateExistingBook(@PathVariable(value = "id") int id, @RequestBody Book book) {
         Book updatedBook = bookService.updateExistingBook(id, book);
-        return generateResponse(String.format("Successfully updated book with id: %s", id), List.of(updatedBook), HttpStatus.OK);
+        return generateBookResponse(String.format("Successfully updated book with id: %s", id), List.of(updatedBook), HttpStatus.OK);
+    }
+
+    @PatchMapping("/{id}")
+    public ResponseEntity<HttpResponse> patchExistingBook(@PathVariable(value = "id") int id, @RequestBody @Valid BookPatch bookPatch) {
+        Book patchedBook = bookService.patchExistingBook(id, bookPatch);
+        return generateBookResponse(String.format("Successfully patched book with id: %s", id), List.of(patchedBook), HttpStatus.OK);
     }
 
     @DeleteMapping("/{id}")
@@ -117,15 +197,42 @@ public class Controller {
         return generateResponse(String.format("Successfully deleted book with id: %s", id), Collections.emptyList(), HttpStatus.OK);
     }
 
-    private ResponseEntity<HttpResponse> generateResponse(String message, List<Book> data, HttpStatus httpStatus) {
+    @DeleteMapping()
+    public ResponseEntity<HttpResponse> deleteExistingBooks(@RequestBody Set<Integer> ids) {
+        BookDeleteResult result = bookService.deleteExistingBooks(ids);
+        return generateResponse(String.format("Successfully deleted %s of %s books", result.getDeleted().size(), ids.size()), List.of(result), HttpStatus.OK);
+    }
+
+    private ResponseEntity<HttpResponse> generateResponse(String message, List<?> data, HttpStatus httpStatus) {
+        return generateResponse(HttpResponse.builder(), message, data, null, httpStatus);
+    }
+
+    private ResponseEntity<HttpResponse> generateBookResponse(String message, List<Book> books, HttpStatus httpStatus) {
+        return generateBookResponse(message, books, null, httpStatus);
+    }
+
+    /**
+     * Only a response of books can be negotiated as Avro, the other responses are JSON, CBOR or Smile.
+     */
+    private ResponseEntity<HttpResponse> generateBookResponse(String message, List<Book> books, Integer nextCursor, HttpStatus httpStatus) {
+        return generateResponse(BookResponse.builder(), message, books, nextCursor, httpStatus);
+    }
+
+    /**
+     * The body is negotiated as JSON, CBOR, Smile or Avro from the Accept header, caches have to keep them apart.
+     */
+    private ResponseEntity<HttpResponse> generateResponse(HttpResponse.HttpResponseBuilder<?, ?> builder, String message, List<?> data,
+                                                          Integer nextCursor, HttpStatus httpStatus) {
 
         return ResponseEntity.ok()
-                .body(HttpResponse.builder()
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(builder
                         .timeStamp(LocalDateTime.now().toString())
                         .statusCode(httpStatus.value())
                         .httpStatus(httpStatus)
                         .message(message)
                         .data(data)
+                        .nextCursor(nextCursor)
                         .build());
     }
 }
\ No newline at end of file
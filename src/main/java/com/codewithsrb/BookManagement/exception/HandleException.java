@@ -5,6 +5,7 @@ import com.auth0.jwt.exceptions.TokenExpiredException;
 import com.codewithsrb.BookManagement.model.HttpResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.web.servlet.error.ErrorController;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
@@ -74,6 +75,28 @@ public class HandleException extends ResponseEntityExceptionHandler implements E
                 .build(), BAD_REQUEST);
     }
 
+    @ExceptionHandler({ConflictException.class, OptimisticLockingFailureException.class})
+    public ResponseEntity<Object> conflictException(RuntimeException exception) {
+        return new ResponseEntity<>(HttpResponse.builder()
+                .timeStamp(now().toString())
+                .httpStatus(CONFLICT)
+                .statusCode(CONFLICT.value())
+                .reason(exception.getMessage())
+                .build(), CONFLICT);
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<Object> serviceUnavailableException(ServiceUnavailableException exception) {
+        return ResponseEntity.status(SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(HttpResponse.builder()
+                        .timeStamp(now().toString())
+                        .httpStatus(SERVICE_UNAVAILABLE)
+                        .statusCode(SERVICE_UNAVAILABLE.value())
+                        .reason(exception.getMessage())
+                        .build());
+    }
+
     @ExceptionHandler(InvalidClaimException.class)
     public ResponseEntity<Object> invalidClaimException(InvalidClaimException exception) {
         return new ResponseEntity<>(HttpResponse.builder()
@@ -1,11 +1,11 @@
 package com.codewithsrb.BookManagement.filter;
 
+import com.codewithsrb.BookManagement.model.VerifiedToken;
 import com.codewithsrb.BookManagement.provider.TokenProvider;
+import com.codewithsrb.BookManagement.security.RequestRateLimiter;
 import jakarta.servlet.FilterChain;
-import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -13,66 +13,87 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.util.List;
-import java.util.Map;
 
 import static java.util.Arrays.asList;
 import static java.util.Optional.ofNullable;
 import static org.apache.commons.lang3.StringUtils.EMPTY;
 import static org.springframework.http.HttpHeaders.AUTHORIZATION;
 import static util.ExceptionUtils.processError;
+import static util.ExceptionUtils.processRejectedToken;
+import static util.ExceptionUtils.processTooManyRequests;
 
 /**
  * Custom authorization filter which is responsible for validating the token and setting
- * the authenticated user in the spring context holder.
+ * the authenticated user in the spring context holder. A rejected token is answered right here with a pre-rendered error.
+ * Every request is rate limited, per user once its token is verified, otherwise per client address, and turned away with a 429.
+ * A rejected token is limited per client address too, before it is answered, so forged tokens cannot be sent unthrottled.
  */
 @Component
-@Slf4j
 public class CustomizeAuthorizationFilter extends OncePerRequestFilter {
 
     private static final String TOKEN_PREFIX = "Bearer ";
-    private static final String EMAIL_KEY = "email";
-    private static final String TOKEN_KEY = "token";
     private static final String[] PUBLIC_ROUTES = {"/books/register", "/books/login"};
     private static final String HTTP_OPTIONS_METHOD = "OPTIONS";
 
     private final TokenProvider tokenProvider;
+    private final RequestRateLimiter requestRateLimiter;
 
-    public CustomizeAuthorizationFilter(TokenProvider tokenProvider) {
+    public CustomizeAuthorizationFilter(TokenProvider tokenProvider, RequestRateLimiter requestRateLimiter) {
         this.tokenProvider = tokenProvider;
+        this.requestRateLimiter = requestRateLimiter;
     }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) {
 
         try {
-            Map<String, String> values = getRequestValues(request);
-            String token = values.get(TOKEN_KEY);
-            String email = values.get(EMAIL_KEY);
-            if(tokenProvider.isTokenValid(email, token)) {
-                List<GrantedAuthority> grantedAuthorities = tokenProvider.getGrantedAuthorities(token);
-                Authentication authentication = tokenProvider.getAuthentication(email, grantedAuthorities, request);
+            if (isAnonymous(request)) {
+                if (isRateLimited(request, response, request.getRemoteAddr(), List.of())) {
+                    return;
+                }
+                filterChain.doFilter(request, response);
+                return;
+            }
+            VerifiedToken verifiedToken = tokenProvider.verifyToken(getToken(request));
+            if (verifiedToken.isRejected()) {
+                if (isRateLimited(request, response, request.getRemoteAddr(), List.of())) {
+                    return;
+                }
+                processRejectedToken(response, verifiedToken.getRejection());
+                return;
+            }
+            if(tokenProvider.isTokenValid(verifiedToken)) {
+                if (isRateLimited(request, response, verifiedToken.getSubject(), verifiedToken.getAuthorities())) {
+                    return;
+                }
+                Authentication authentication = tokenProvider.getAuthentication(verifiedToken.getSubject(), verifiedToken.getAuthorities(), request);
                 SecurityContextHolder.getContext().setAuthentication(authentication);
             } else {
+                if (isRateLimited(request, response, request.getRemoteAddr(), List.of())) {
+                    return;
+                }
                 SecurityContextHolder.clearContext();
             }
             filterChain.doFilter(request, response);
         } catch(Exception exception) {
-            log.error(exception.getMessage());
             processError(response, exception);
         }
     }
 
-    @Override
-    protected boolean shouldNotFilter(HttpServletRequest request) throws ServletException {
+    private boolean isAnonymous(HttpServletRequest request) {
         return request.getHeader(AUTHORIZATION) == null
                 || !request.getHeader(AUTHORIZATION).startsWith(TOKEN_PREFIX)
                 || request.getHeader(AUTHORIZATION).equalsIgnoreCase(HTTP_OPTIONS_METHOD)
                 || asList(PUBLIC_ROUTES).contains(request.getRequestURI());
     }
 
-    private Map<String, String> getRequestValues(HttpServletRequest request) {
-        String token = getToken(request);
-        return Map.of(EMAIL_KEY, tokenProvider.getSubject(token, request), TOKEN_KEY, token);
+    private boolean isRateLimited(HttpServletRequest request, HttpServletResponse response, String client, List<GrantedAuthority> authorities) {
+        long waitNanos = requestRateLimiter.acquire(request, client, authorities);
+        if (waitNanos > 0) {
+            processTooManyRequests(response, waitNanos);
+            return true;
+        }
+        return false;
     }
 
     private String getToken(HttpServletRequest request) {
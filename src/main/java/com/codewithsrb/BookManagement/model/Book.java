@@ -11,7 +11,9 @@ import lombok.*;
 @AllArgsConstructor
 public class Book {
 
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // sequence ids (allocated 50 at a time) keep hibernate JDBC insert batching enabled, identity ids disable it
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_sequence")
+    @SequenceGenerator(name = "book_sequence", sequenceName = "BOOK_DETAILS_SEQ", allocationSize = 50)
     @Id
     private int id;
 
@@ -20,4 +22,8 @@ public class Book {
     private String bookLanguage;
     private double price;
 
+    // incremented by every update, a write carrying a stale version is rejected instead of overwriting a concurrent one
+    @Version
+    private Long version;
+
 }
@@ -0,0 +1,17 @@
+package com.codewithsrb.BookManagement.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Outcome of a single book in a batch creation request, reported by its position in the request.
+ */
+@Getter
+@AllArgsConstructor
+public class BookBatchItem {
+
+    private final int index;
+    private final Integer id;
+    private final String status;
+    private final String reason;
+}
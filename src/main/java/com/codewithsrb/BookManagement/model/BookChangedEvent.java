@@ -0,0 +1,20 @@
+package com.codewithsrb.BookManagement.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Application event published by the book service for every created, updated or deleted book.
+ * The book is null when it has been deleted.
+ */
+@Getter
+@AllArgsConstructor
+public class BookChangedEvent {
+
+    private final int bookId;
+    private final Book book;
+
+    public boolean isDeleted() {
+        return book == null;
+    }
+}
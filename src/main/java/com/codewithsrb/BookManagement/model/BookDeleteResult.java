@@ -0,0 +1,17 @@
+package com.codewithsrb.BookManagement.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk delete request, the ids which were deleted and the ids for which no book existed.
+ */
+@Getter
+@AllArgsConstructor
+public class BookDeleteResult {
+
+    private final List<Integer> deleted;
+    private final List<Integer> notFound;
+}
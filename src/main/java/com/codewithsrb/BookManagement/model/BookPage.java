@@ -0,0 +1,18 @@
+package com.codewithsrb.BookManagement.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * A single keyset page of books along with the cursor to request the next page.
+ * The next cursor is null when there are no more books to read.
+ */
+@Getter
+@AllArgsConstructor
+public class BookPage {
+
+    private final List<Book> books;
+    private final Integer nextCursor;
+}
@@ -0,0 +1,25 @@
+package com.codewithsrb.BookManagement.model;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+/**
+ * Partial update of a book, only the fields which are not null are changed.
+ * The version is the one the caller read, the update is rejected if the book has been changed since.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode
+public class BookPatch {
+
+    private String title;
+    private String author;
+    private String bookLanguage;
+    private Double price;
+
+    @NotNull(message = "Version cannot be null")
+    private Long version;
+}
@@ -0,0 +1,11 @@
+package com.codewithsrb.BookManagement.model;
+
+import lombok.experimental.SuperBuilder;
+
+/**
+ * A response whose data are books only. It is rendered like any other response, and is the only one which can also
+ * be written as application/avro.
+ */
+@SuperBuilder
+public class BookResponse extends HttpResponse {
+}
@@ -1,7 +1,7 @@
 package com.codewithsrb.BookManagement.model;
 
-import lombok.Builder;
 import lombok.Data;
+import lombok.experimental.SuperBuilder;
 import org.springframework.http.HttpStatus;
 
 import java.util.List;
@@ -9,7 +9,7 @@ import java.util.Map;
 import java.util.Objects;
 
 @Data
-@Builder
+@SuperBuilder
 public class HttpResponse {
 
     protected String timeStamp;
@@ -18,4 +18,5 @@ public class HttpResponse {
     protected String message;
     protected String reason;
     protected List<?> data;
+    protected Integer nextCursor;
 }
@@ -0,0 +1,39 @@
+package com.codewithsrb.BookManagement.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * A book event waiting to be published, written in the same transaction as the book change itself.
+ * The relay publishes the events in id order and deletes them once the broker acknowledged them.
+ * A tombstone event carries only the book id and is published with a null value.
+ * The version of the book is carried along, so the read model of every node can send the same ETags as the database.
+ * An event the broker can never accept, one which does not serialize, is kept with failedAt set instead of blocking the events behind it.
+ */
+@Entity
+@Data
+@Table(name = "BOOK_OUTBOX")
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_outbox_sequence")
+    @SequenceGenerator(name = "book_outbox_sequence", sequenceName = "BOOK_OUTBOX_SEQ", allocationSize = 50)
+    @Id
+    private long id;
+
+    private int bookId;
+    private String title;
+    private String author;
+    private String bookLanguage;
+    private double price;
+    private Long version;
+    private boolean tombstone;
+    private Instant createdAt;
+    private int attempts;
+    private Instant failedAt;
+    private String failureReason;
+}
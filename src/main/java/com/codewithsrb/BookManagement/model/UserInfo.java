@@ -5,6 +5,8 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotEmpty;
 import lombok.*;
@@ -14,8 +16,12 @@ import lombok.*;
 @AllArgsConstructor
 @Builder
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = UserInfo.UNIQUE_EMAIL, columnNames = "email"))
 public class UserInfo {
 
+    // the unique index makes findByEmail an index lookup and lets the database reject a second registration of an email
+    public static final String UNIQUE_EMAIL = "UK_USER_INFO_EMAIL";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private int id;
@@ -0,0 +1,45 @@
+package com.codewithsrb.BookManagement.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Immutable result of verifying an access token once, it carries everything the authorization filter needs.
+ * A token which failed the verification carries why it was rejected instead.
+ */
+@Getter
+@AllArgsConstructor
+public class VerifiedToken {
+
+    private final String subject;
+    private final List<GrantedAuthority> authorities;
+    private final Instant expiresAt;
+    private final Rejection rejection;
+
+    public enum Rejection {
+        EXPIRED,
+        INVALID_CLAIM,
+        INVALID
+    }
+
+    public VerifiedToken(String subject, List<GrantedAuthority> authorities, Instant expiresAt) {
+        this(subject, authorities, expiresAt, null);
+    }
+
+    public static VerifiedToken rejected(Rejection rejection) {
+        return new VerifiedToken(null, List.of(), null, rejection);
+    }
+
+    public boolean isRejected() {
+        return Objects.nonNull(rejection);
+    }
+
+    public boolean isExpired() {
+        return expiresAt == null || expiresAt.isBefore(Instant.now());
+    }
+}
@@ -6,8 +6,15 @@ import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.InvalidClaimException;
 import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.exceptions.TokenExpiredException;
+import com.auth0.jwt.interfaces.DecodedJWT;
 import com.codewithsrb.BookManagement.model.UserDetailsImpl;
+import com.codewithsrb.BookManagement.model.UserInfo;
+import com.codewithsrb.BookManagement.model.VerifiedToken;
+import com.codewithsrb.BookManagement.model.VerifiedToken.Rejection;
 import com.codewithsrb.BookManagement.service.UserDetailsServiceImpl;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
@@ -19,13 +26,20 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
+import java.util.HexFormat;
 import java.util.List;
 
 import static com.auth0.jwt.algorithms.Algorithm.HMAC512;
 import static java.lang.System.currentTimeMillis;
 import static java.util.Arrays.stream;
-import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toUnmodifiableList;
 
 /**
  * Token provider class which is responsible for creating the access token
@@ -40,13 +54,34 @@ public class TokenProvider {
     private static final String BOOKING_MANAGEMENT_SERVICE = "BOOK_MANAGEMENT_SERVICE";
     private static final long ACCESS_TOKEN_EXPIRATION_TIME = 1_800_000;
 
-    @Value("${jwt.secret}")
-    private String secret;
+    private static final String TOKEN_DIGEST_ALGORITHM = "SHA-256";
+    private static final long MAX_VERIFIED_TOKENS = 10_000;
+    private static final long MAX_REJECTED_TOKENS = 10_000;
+    private static final Duration REJECTED_TOKEN_RETENTION = Duration.ofMinutes(10);
+    private static final int MAX_TOKEN_LENGTH = 4096;
 
-    private final UserDetailsServiceImpl userDetailsServiceImpl;
+    private final Algorithm algorithm;
+    private final JWTVerifier jwtVerifier;
+    private final Cache<String, VerifiedToken> verifiedTokens;
+    private final Cache<String, Rejection> rejectedTokens;
 
-    public TokenProvider(UserDetailsServiceImpl userDetailsServiceImpl) {
+    private final UserDetailsServiceImpl userDetailsServiceImpl;
+    private final boolean statelessPrincipal;
+
+    public TokenProvider(@Value("${jwt.secret}") String secret, @Value("${jwt.stateless-principal:true}") boolean statelessPrincipal,
+                         UserDetailsServiceImpl userDetailsServiceImpl) {
+        this.algorithm = HMAC512(secret);
+        this.jwtVerifier = JWT.require(algorithm).withIssuer(CODE_WITH_SRB_LLC).build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(MAX_VERIFIED_TOKENS)
+                .expireAfter(new TokenExpiry())
+                .build();
+        this.rejectedTokens = Caffeine.newBuilder()
+                .maximumSize(MAX_REJECTED_TOKENS)
+                .expireAfterWrite(REJECTED_TOKEN_RETENTION)
+                .build();
         this.userDetailsServiceImpl = userDetailsServiceImpl;
+        this.statelessPrincipal = statelessPrincipal;
     }
 
     public String createAccessToken(UserDetailsImpl userDetailsImpl) {
@@ -58,56 +93,109 @@ public class TokenProvider {
                 .withSubject(userDetailsImpl.getUsername())
                 .withArrayClaim(AUTHORITIES, claims)
                 .withExpiresAt(new Date(currentTimeMillis() + ACCESS_TOKEN_EXPIRATION_TIME))
-                .sign(HMAC512(secret.getBytes()));
+                .sign(algorithm);
     }
 
     private static String[] getClaimsFromUser(UserDetailsImpl userDetailsImpl) {
         return userDetailsImpl.getAuthorities().stream().map(GrantedAuthority::getAuthority).toArray(String[]::new);
     }
 
-    public List<GrantedAuthority> getGrantedAuthorities(String token) {
-        String[] claims = getClaimsFromToken(token);
-        return stream(claims).map(SimpleGrantedAuthority::new).collect(toList());
+    /**
+     * Decodes and verifies the token once and returns its subject, authorities and expiry. Verified tokens are
+     * cached by their digest until they expire, so a repeated token skips the signature check entirely.
+     * A token failing the verification is returned rejected instead of throwing. Rejected tokens are kept by their digest
+     * in a separate bounded cache, so a client repeating a bad or expired token costs one digest per request and cannot
+     * push the valid tokens out of their cache. A token not even shaped like a JWT is rejected before it is hashed.
+     */
+    public VerifiedToken verifyToken(String token) {
+        if (token.length() > MAX_TOKEN_LENGTH || StringUtils.countMatches(token, '.') != 2) {
+            return VerifiedToken.rejected(Rejection.INVALID);
+        }
+        String digest = digest(token);
+        VerifiedToken verifiedToken = verifiedTokens.getIfPresent(digest);
+        if (verifiedToken != null && !verifiedToken.isExpired()) {
+            return verifiedToken;
+        }
+        Rejection rejection = rejectedTokens.getIfPresent(digest);
+        if (rejection != null) {
+            return VerifiedToken.rejected(rejection);
+        }
+        verifiedToken = decodeAndVerify(token);
+        if (verifiedToken.isRejected()) {
+            rejectedTokens.put(digest, verifiedToken.getRejection());
+        } else {
+            verifiedTokens.put(digest, verifiedToken);
+        }
+        return verifiedToken;
     }
 
-    private String[] getClaimsFromToken(String token) {
-        JWTVerifier verifier = getJwtVerifier();
-        return verifier.verify(token).getClaim(AUTHORITIES).asArray(String.class);
+    private VerifiedToken decodeAndVerify(String token) {
+        try {
+            DecodedJWT decodedJWT = jwtVerifier.verify(token);
+            String[] claims = decodedJWT.getClaim(AUTHORITIES).asArray(String.class);
+            List<GrantedAuthority> authorities = claims == null ? List.of() : stream(claims).map(SimpleGrantedAuthority::new).collect(toUnmodifiableList());
+            return new VerifiedToken(decodedJWT.getSubject(), authorities, decodedJWT.getExpiresAtAsInstant());
+        } catch (TokenExpiredException exception) {
+            return VerifiedToken.rejected(Rejection.EXPIRED);
+        } catch (InvalidClaimException exception) {
+            return VerifiedToken.rejected(Rejection.INVALID_CLAIM);
+        } catch (JWTVerificationException exception) {
+            log.debug("Rejected an access token: {}", exception.getMessage());
+            return VerifiedToken.rejected(Rejection.INVALID);
+        }
     }
 
-    private JWTVerifier getJwtVerifier() {
+    private static String digest(String token) {
         try {
-            Algorithm algorithm = HMAC512(secret);
-            return JWT.require(algorithm).withIssuer(CODE_WITH_SRB_LLC).build();
-        } catch (JWTVerificationException e) {
-            throw new JWTVerificationException("Token Can not be verified");
+            return HexFormat.of().formatHex(MessageDigest.getInstance(TOKEN_DIGEST_ALGORITHM).digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
         }
     }
 
+    /**
+     * In stateless mode the principal is built from the verified token claims only, so no user lookup happens
+     * on the request path. Code that needs the full user can still get it from the user details service.
+     */
     public Authentication getAuthentication(String email, List<GrantedAuthority> grantedAuthorities, HttpServletRequest request) {
-        UsernamePasswordAuthenticationToken userPasswordAuthToken = new UsernamePasswordAuthenticationToken(userDetailsServiceImpl.findUserByEmail(email), null, grantedAuthorities);
+        UserInfo principal = statelessPrincipal ? getPrincipalFromClaims(email, grantedAuthorities) : userDetailsServiceImpl.findUserByEmail(email);
+        UsernamePasswordAuthenticationToken userPasswordAuthToken = new UsernamePasswordAuthenticationToken(principal, null, grantedAuthorities);
         userPasswordAuthToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
         return userPasswordAuthToken;
     }
 
-    public boolean isTokenValid(String email, String token) {
-        return StringUtils.isNotEmpty(email) && !isTokenExpired(token);
+    private static UserInfo getPrincipalFromClaims(String email, List<GrantedAuthority> grantedAuthorities) {
+        return UserInfo.builder()
+                .email(email)
+                .role(grantedAuthorities.stream().map(GrantedAuthority::getAuthority).collect(joining(",")))
+                .build();
     }
 
-    private boolean isTokenExpired(String token) {
-        Date expiresAt = getJwtVerifier().verify(token).getExpiresAt();
-        return expiresAt.before(new Date());
+    public boolean isTokenValid(VerifiedToken verifiedToken) {
+        return !verifiedToken.isRejected() && StringUtils.isNotEmpty(verifiedToken.getSubject()) && !verifiedToken.isExpired();
     }
 
-    public String getSubject(String token, HttpServletRequest request) {
-        try {
-            return getJwtVerifier().verify(token).getSubject();
-        } catch (TokenExpiredException exception) {
-            request.setAttribute("expiredMessage", exception.getMessage());
-            throw exception;
-        } catch (InvalidClaimException exception) {
-            request.setAttribute("invalidClaim", exception.getMessage());
-            throw exception;
+    /**
+     * Expires each cached token at the moment the token itself expires.
+     */
+    private static class TokenExpiry implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String digest, VerifiedToken verifiedToken, long currentTime) {
+            if (verifiedToken.getExpiresAt() == null) {
+                return 0;
+            }
+            return Math.max(0, Duration.between(Instant.now(), verifiedToken.getExpiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String digest, VerifiedToken verifiedToken, long currentTime, long currentDuration) {
+            return expireAfterCreate(digest, verifiedToken, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String digest, VerifiedToken verifiedToken, long currentTime, long currentDuration) {
+            return currentDuration;
         }
     }
 }
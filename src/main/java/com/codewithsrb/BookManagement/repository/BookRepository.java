@@ -1,10 +1,56 @@
 package com.codewithsrb.BookManagement.repository;
 
 import com.codewithsrb.BookManagement.model.Book;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
 @Repository
 public interface BookRepository extends JpaRepository<Book, Integer> {
 
+    /**
+     * Keyset slice on the primary key index: returns the books with an id greater than the given cursor,
+     * ordered by id, so the cost of a page does not depend on how deep it is.
+     */
+    List<Book> findByIdGreaterThanOrderByIdAsc(int id, Limit limit);
+
+    /**
+     * Streams every book in id order through a forward-only cursor. The stream has to be consumed
+     * and closed inside a read only transaction.
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    Stream<Book> streamAllByOrderByIdAsc();
+
+    /**
+     * Applies the non null fields to the book in one conditional UPDATE and increments its version.
+     * Returns 0 when no book has the given id and version, either because it does not exist or because it was changed since.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Book b SET b.title = COALESCE(:title, b.title), b.author = COALESCE(:author, b.author), "
+            + "b.bookLanguage = COALESCE(:bookLanguage, b.bookLanguage), b.price = COALESCE(:price, b.price), b.version = b.version + 1 "
+            + "WHERE b.id = :id AND b.version = :version")
+    int patchBook(@Param("id") int id, @Param("version") long version, @Param("title") String title, @Param("author") String author,
+                  @Param("bookLanguage") String bookLanguage, @Param("price") Double price);
+
+    @Query("SELECT b.id FROM Book b WHERE b.id IN :ids")
+    List<Integer> findExistingIds(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * Deletes the books in one set based DELETE without loading them first, returns how many were deleted.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Book b WHERE b.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Integer> ids);
 }
@@ -0,0 +1,21 @@
+package com.codewithsrb.BookManagement.repository;
+
+import com.codewithsrb.BookManagement.model.OutboxEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface OutboxRepository extends JpaRepository<OutboxEvent, Long> {
+
+    List<OutboxEvent> findByFailedAtIsNullOrderByIdAsc(Limit limit);
+
+    Optional<OutboxEvent> findFirstByFailedAtIsNullOrderByIdAsc();
+
+    long countByFailedAtIsNull();
+
+    long countByFailedAtIsNotNull();
+}
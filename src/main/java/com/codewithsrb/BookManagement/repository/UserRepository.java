@@ -2,10 +2,16 @@ package com.codewithsrb.BookManagement.repository;
 
 import com.codewithsrb.BookManagement.model.UserInfo;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface UserRepository extends JpaRepository<UserInfo, String> {
 
     UserInfo findByEmail(String email);
+
+    @Query("SELECT u.email FROM UserInfo u")
+    List<String> findAllEmails();
 }
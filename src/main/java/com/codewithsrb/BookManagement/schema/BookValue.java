@@ -14,8 +14,8 @@ import org.apache.avro.message.SchemaStore;
 /** Book detail value */
 @org.apache.avro.specific.AvroGenerated
 public class BookValue extends org.apache.avro.specific.SpecificRecordBase implements org.apache.avro.specific.SpecificRecord {
-  private static final long serialVersionUID = -772882313307242880L;
-  public static final org.apache.avro.Schema SCHEMA$ = new org.apache.avro.Schema.Parser().parse("{\"type\":\"record\",\"name\":\"BookValue\",\"namespace\":\"com.codewithsrb.BookManagement.schema\",\"doc\":\"Book detail value\",\"fields\":[{\"name\":\"title\",\"type\":\"string\",\"default\":\"None\"},{\"name\":\"author\",\"type\":\"string\",\"default\":\"None\"},{\"name\":\"bookLanguage\",\"type\":\"string\",\"default\":\"None\"},{\"name\":\"price\",\"type\":\"double\"}]}");
+  private static final long serialVersionUID = 2863615989642851546L;
+  public static final org.apache.avro.Schema SCHEMA$ = new org.apache.avro.Schema.Parser().parse("{\"type\":\"record\",\"name\":\"BookValue\",\"namespace\":\"com.codewithsrb.BookManagement.schema\",\"doc\":\"Book detail value\",\"fields\":[{\"name\":\"title\",\"type\":\"string\",\"default\":\"None\"},{\"name\":\"author\",\"type\":\"string\",\"default\":\"None\"},{\"name\":\"bookLanguage\",\"type\":\"string\",\"default\":\"None\"},{\"name\":\"price\",\"type\":\"double\"},{\"name\":\"version\",\"type\":[\"null\",\"long\"],\"doc\":\"Version of the book in the database, null from producers which do not send it\",\"default\":null}]}");
   public static org.apache.avro.Schema getClassSchema() { return SCHEMA$; }
 
   private static SpecificData MODEL$ = new SpecificData();
@@ -56,6 +56,8 @@ public class BookValue extends org.apache.avro.specific.SpecificRecordBase imple
   @Deprecated public java.lang.CharSequence author;
   @Deprecated public java.lang.CharSequence bookLanguage;
   @Deprecated public double price;
+  /** Version of the book in the database, null from producers which do not send it */
+  @Deprecated public java.lang.Long version;
 
   /**
    * Default constructor.  Note that this does not initialize fields
@@ -70,12 +72,14 @@ public class BookValue extends org.apache.avro.specific.SpecificRecordBase imple
    * @param author The new value for author
    * @param bookLanguage The new value for bookLanguage
    * @param price The new value for price
+   * @param version Version of the book in the database, null from producers which do not send it
    */
-  public BookValue(java.lang.CharSequence title, java.lang.CharSequence author, java.lang.CharSequence bookLanguage, java.lang.Double price) {
+  public BookValue(java.lang.CharSequence title, java.lang.CharSequence author, java.lang.CharSequence bookLanguage, java.lang.Double price, java.lang.Long version) {
     this.title = title;
     this.author = author;
     this.bookLanguage = bookLanguage;
     this.price = price;
+    this.version = version;
   }
 
   public org.apache.avro.Schema getSchema() { return SCHEMA$; }
@@ -86,6 +90,7 @@ public class BookValue extends org.apache.avro.specific.SpecificRecordBase imple
     case 1: return author;
     case 2: return bookLanguage;
     case 3: return price;
+    case 4: return version;
     default: throw new org.apache.avro.AvroRuntimeException("Bad index");
     }
   }
@@ -98,6 +103,7 @@ public class BookValue extends org.apache.avro.specific.SpecificRecordBase imple
     case 1: author = (java.lang.CharSequence)value$; break;
     case 2: bookLanguage = (java.lang.CharSequence)value$; break;
     case 3: price = (java.lang.Double)value$; break;
+    case 4: version = (java.lang.Long)value$; break;
     default: throw new org.apache.avro.AvroRuntimeException("Bad index");
     }
   }
@@ -166,6 +172,23 @@ public class BookValue extends org.apache.avro.specific.SpecificRecordBase imple
     this.price = value;
   }
 
+  /**
+   * Gets the value of the 'version' field.
+   * @return Version of the book in the database, null from producers which do not send it
+   */
+  public java.lang.Long getVersion() {
+    return version;
+  }
+
+  /**
+   * Sets the value of the 'version' field.
+   * Version of the book in the database, null from producers which do not send it
+   * @param value the value to set.
+   */
+  public void setVersion(java.lang.Long value) {
+    this.version = value;
+  }
+
   /**
    * Creates a new BookValue RecordBuilder.
    * @return A new BookValue RecordBuilder
@@ -202,6 +225,8 @@ public class BookValue extends org.apache.avro.specific.SpecificRecordBase imple
     private java.lang.CharSequence author;
     private java.lang.CharSequence bookLanguage;
     private double price;
+    /** Version of the book in the database, null from producers which do not send it */
+    private java.lang.Long version;
 
     /** Creates a new Builder */
     private Builder() {
@@ -230,6 +255,10 @@ public class BookValue extends org.apache.avro.specific.SpecificRecordBase imple
         this.price = data().deepCopy(fields()[3].schema(), other.price);
         fieldSetFlags()[3] = true;
       }
+      if (isValidValue(fields()[4], other.version)) {
+        this.version = data().deepCopy(fields()[4].schema(), other.version);
+        fieldSetFlags()[4] = true;
+      }
     }
 
     /**
@@ -254,6 +283,10 @@ public class BookValue extends org.apache.avro.specific.SpecificRecordBase imple
         this.price = data().deepCopy(fields()[3].schema(), other.price);
         fieldSetFlags()[3] = true;
       }
+      if (isValidValue(fields()[4], other.version)) {
+        this.version = data().deepCopy(fields()[4].schema(), other.version);
+        fieldSetFlags()[4] = true;
+      }
     }
 
     /**
@@ -411,6 +444,49 @@ public class BookValue extends org.apache.avro.specific.SpecificRecordBase imple
       return this;
     }
 
+    /**
+      * Gets the value of the 'version' field.
+      * Version of the book in the database, null from producers which do not send it
+      * @return The value.
+      */
+    public java.lang.Long getVersion() {
+      return version;
+    }
+
+    /**
+      * Sets the value of the 'version' field.
+      * Version of the book in the database, null from producers which do not send it
+      * @param value The value of 'version'.
+      * @return This builder.
+      */
+    public com.codewithsrb.BookManagement.schema.BookValue.Builder setVersion(java.lang.Long value) {
+      validate(fields()[4], value);
+      this.version = value;
+      fieldSetFlags()[4] = true;
+      return this;
+    }
+
+    /**
+      * Checks whether the 'version' field has been set.
+      * Version of the book in the database, null from producers which do not send it
+      * @return True if the 'version' field has been set, false otherwise.
+      */
+    public boolean hasVersion() {
+      return fieldSetFlags()[4];
+    }
+
+
+    /**
+      * Clears the value of the 'version' field.
+      * Version of the book in the database, null from producers which do not send it
+      * @return This builder.
+      */
+    public com.codewithsrb.BookManagement.schema.BookValue.Builder clearVersion() {
+      version = null;
+      fieldSetFlags()[4] = false;
+      return this;
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public BookValue build() {
@@ -420,6 +496,7 @@ public class BookValue extends org.apache.avro.specific.SpecificRecordBase imple
         record.author = fieldSetFlags()[1] ? this.author : (java.lang.CharSequence) defaultValue(fields()[1]);
         record.bookLanguage = fieldSetFlags()[2] ? this.bookLanguage : (java.lang.CharSequence) defaultValue(fields()[2]);
         record.price = fieldSetFlags()[3] ? this.price : (java.lang.Double) defaultValue(fields()[3]);
+        record.version = fieldSetFlags()[4] ? this.version : (java.lang.Long) defaultValue(fields()[4]);
         return record;
       } catch (java.lang.Exception e) {
         throw new org.apache.avro.AvroRuntimeException(e);
@@ -1,39 +1,24 @@
 package com.codewithsrb.BookManagement.security;
 
-import com.codewithsrb.BookManagement.model.HttpResponse;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.web.access.AccessDeniedHandler;
 import org.springframework.stereotype.Component;
+import util.PreRenderedError;
 
 import java.io.IOException;
-import java.io.OutputStream;
 
-import static java.time.LocalDateTime.now;
 import static org.springframework.http.HttpStatus.FORBIDDEN;
-import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 
 @Component
 public class AccessDeniedHandlerImpl implements AccessDeniedHandler {
 
+    private static final PreRenderedError PERMISSION_DENIED = PreRenderedError.of(FORBIDDEN, "You don't have enough permission.");
+
     @Override
     public void handle(HttpServletRequest request, HttpServletResponse response, AccessDeniedException accessDeniedException) throws IOException, ServletException {
-        HttpResponse httpResponse = HttpResponse.builder()
-                .timeStamp(now().toString())
-                .reason("You don't have enough permission.")
-                .statusCode(FORBIDDEN.value())
-                .httpStatus(FORBIDDEN)
-                .build();
-
-        response.setContentType(APPLICATION_JSON_VALUE);
-        response.setStatus(FORBIDDEN.value());
-        OutputStream outputStream = response.getOutputStream();
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.writeValue(outputStream, httpResponse);
-        outputStream.flush();
-
+        PERMISSION_DENIED.write(response);
     }
 }
@@ -1,39 +1,24 @@
 package com.codewithsrb.BookManagement.security;
 
-import com.codewithsrb.BookManagement.model.HttpResponse;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.stereotype.Component;
+import util.PreRenderedError;
 
 import java.io.IOException;
-import java.io.OutputStream;
 
-import static java.time.LocalDateTime.now;
 import static org.springframework.http.HttpStatus.UNAUTHORIZED;
-import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 
 @Component
 public class AuthenticationEntryPointImpl implements AuthenticationEntryPoint {
 
+    private static final PreRenderedError LOGIN_REQUIRED = PreRenderedError.of(UNAUTHORIZED, "Please login to access this resource.");
+
     @Override
     public void commence(HttpServletRequest request, HttpServletResponse response, AuthenticationException authException) throws IOException, ServletException {
-
-        HttpResponse httpResponse = HttpResponse.builder()
-                .timeStamp(now().toString())
-                .reason("Please login to access this resource.")
-                .statusCode(UNAUTHORIZED.value())
-                .httpStatus(UNAUTHORIZED)
-                .build();
-
-        response.setContentType(APPLICATION_JSON_VALUE);
-        response.setStatus(UNAUTHORIZED.value());
-        OutputStream outputStream = response.getOutputStream();
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.writeValue(outputStream, httpResponse);
-        outputStream.flush();
+        LOGIN_REQUIRED.write(response);
     }
 }
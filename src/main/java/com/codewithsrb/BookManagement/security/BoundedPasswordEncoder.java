@@ -0,0 +1,91 @@
+package com.codewithsrb.BookManagement.security;
+
+import com.codewithsrb.BookManagement.configuration.PasswordHashingProperties;
+import com.codewithsrb.BookManagement.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs the password hashing and verification of the delegate on its own fixed pool with a bounded queue,
+ * so a burst of logins or registrations cannot take the request threads serving the books away.
+ * A caller is turned away at once when the queue is full, or when its hash is not done within the maximum wait.
+ * The time spent hashing is recorded as password.hash and the pool is reported by the executor metrics named password.hash.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private static final String HASHING_BUSY = "Too many logins in progress. Please try again shortly.";
+    private static final String HASH_TIMER = "password.hash";
+    private static final String OPERATION_TAG = "operation";
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long maxWaitMillis;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, PasswordHashingProperties properties, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.executor = new ThreadPoolExecutor(properties.getThreads(), properties.getThreads(), 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()), new CustomizableThreadFactory("password-hash-"));
+        this.maxWaitMillis = properties.getMaxWait().toMillis();
+        this.encodeTimer = Timer.builder(HASH_TIMER).tag(OPERATION_TAG, "encode").register(meterRegistry);
+        this.matchesTimer = Timer.builder(HASH_TIMER).tag(OPERATION_TAG, "matches").register(meterRegistry);
+        new ExecutorServiceMetrics(executor, HASH_TIMER, Tags.empty()).bindTo(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return execute(() -> encodeTimer.record(() -> delegate.encode(rawPassword)));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(() -> matchesTimer.record(() -> delegate.matches(rawPassword, encodedPassword)));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T execute(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException exception) {
+            throw new ServiceUnavailableException(HASHING_BUSY);
+        }
+        try {
+            return future.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException exception) {
+            future.cancel(true);
+            throw new ServiceUnavailableException(HASHING_BUSY);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new ServiceUnavailableException(HASHING_BUSY);
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(exception.getCause());
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,162 @@
+package com.codewithsrb.BookManagement.security;
+
+import com.codewithsrb.BookManagement.configuration.RateLimitProperties;
+import com.codewithsrb.BookManagement.configuration.RateLimitProperties.Limit;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static com.codewithsrb.BookManagement.configuration.RateLimitProperties.ANONYMOUS;
+
+/**
+ * Token buckets per user, and per client address on the public routes. A request takes a token from the bucket of the first
+ * configured route matching it which limits its role, otherwise from the bucket of its role. A user with several roles gets the
+ * most generous limit of them, a user with no limited role the anonymous one.
+ * Every bucket is a single AtomicLong updated by compare and set (the generic cell rate algorithm), no request ever takes a lock.
+ * Buckets not used for the idle timeout are evicted, by then they are full again anyway, and at most max-buckets are kept.
+ * Rejected requests are counted as rate.limit.rejected tagged by the limit, the number of buckets is reported as rate.limit.buckets.
+ */
+@Component
+public class RequestRateLimiter {
+
+    private static final int GLOBAL_ROUTE = -1;
+
+    private final boolean enabled;
+    private final Map<String, Rate> rates;
+    private final List<RouteRates> routes;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final Cache<BucketKey, AtomicLong> buckets;
+    private final Map<String, Counter> rejections = new HashMap<>();
+
+    /**
+     * A token is added every interval, at most burst nanoseconds worth of them are kept.
+     */
+    private record Rate(long intervalNanos, long burstNanos) {
+
+        static Rate of(String key, Limit limit) {
+            if (limit.getCapacity() <= 0 || limit.getPerSecond() <= 0) {
+                throw new IllegalArgumentException(String.format("Rate limit %s needs a positive capacity and per-second", key));
+            }
+            long intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / limit.getPerSecond()));
+            return new Rate(intervalNanos, intervalNanos * limit.getCapacity());
+        }
+    }
+
+    private record RouteRates(int index, String path, String method, Map<String, Rate> rates) {
+    }
+
+    private record BucketKey(int route, String client) {
+    }
+
+    public RequestRateLimiter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.isEnabled();
+        this.rates = toRates(properties.getLimits());
+        this.routes = IntStream.range(0, properties.getRoutes().size())
+                .mapToObj(index -> {
+                    RateLimitProperties.Route route = properties.getRoutes().get(index);
+                    if (Objects.isNull(route.getPath())) {
+                        throw new IllegalArgumentException(String.format("Rate limited route %d needs a path", index));
+                    }
+                    return new RouteRates(index, route.getPath(), route.getMethod(), toRates(route.getLimits()));
+                })
+                .toList();
+        long longestRefillNanos = Stream.concat(Stream.of(rates), routes.stream().map(RouteRates::rates))
+                .flatMap(limits -> limits.values().stream())
+                .mapToLong(Rate::burstNanos)
+                .max()
+                .orElse(0);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxBuckets())
+                .expireAfterAccess(Duration.ofNanos(Math.max(properties.getIdleTimeout().toNanos(), longestRefillNanos)))
+                .build();
+
+        Stream.concat(rates.keySet().stream(), routes.stream().flatMap(route -> route.rates().keySet().stream()))
+                .distinct()
+                .forEach(key -> rejections.put(key, Counter.builder("rate.limit.rejected")
+                        .description("Requests turned away by the rate limiter")
+                        .tag("limit", key)
+                        .register(meterRegistry)));
+        Gauge.builder("rate.limit.buckets", buckets, Cache::estimatedSize)
+                .description("Token buckets currently kept by the rate limiter")
+                .register(meterRegistry);
+    }
+
+    private static Map<String, Rate> toRates(Map<String, Limit> limits) {
+        Map<String, Rate> rates = new HashMap<>();
+        limits.forEach((key, limit) -> rates.put(key, Rate.of(key, limit)));
+        return Map.copyOf(rates);
+    }
+
+    /**
+     * Takes a token for a request of the client, a user's subject or the address of an anonymous client.
+     * Returns 0 when the request may go on, otherwise the nanoseconds until the client gets a token again.
+     */
+    public long acquire(HttpServletRequest request, String client, Collection<? extends GrantedAuthority> authorities) {
+        if (!enabled) {
+            return 0;
+        }
+        for (RouteRates route : routes) {
+            if (matches(route, request)) {
+                String key = limitKey(route.rates(), authorities);
+                if (Objects.nonNull(key)) {
+                    return acquire(new BucketKey(route.index(), client), key, route.rates().get(key));
+                }
+            }
+        }
+        String key = limitKey(rates, authorities);
+        if (Objects.isNull(key)) {
+            return 0;
+        }
+        return acquire(new BucketKey(GLOBAL_ROUTE, client), key, rates.get(key));
+    }
+
+    private boolean matches(RouteRates route, HttpServletRequest request) {
+        return (Objects.isNull(route.method()) || route.method().equalsIgnoreCase(request.getMethod()))
+                && pathMatcher.match(route.path(), request.getRequestURI());
+    }
+
+    private static String limitKey(Map<String, Rate> rates, Collection<? extends GrantedAuthority> authorities) {
+        String key = null;
+        for (GrantedAuthority authority : authorities) {
+            Rate rate = rates.get(authority.getAuthority());
+            if (Objects.nonNull(rate) && (Objects.isNull(key) || rate.intervalNanos() < rates.get(key).intervalNanos())) {
+                key = authority.getAuthority();
+            }
+        }
+        return Objects.nonNull(key) || !rates.containsKey(ANONYMOUS) ? key : ANONYMOUS;
+    }
+
+    private long acquire(BucketKey bucketKey, String key, Rate rate) {
+        AtomicLong theoreticalArrival = buckets.get(bucketKey, ignored -> new AtomicLong(Long.MIN_VALUE));
+        while (true) {
+            long now = System.nanoTime();
+            long current = theoreticalArrival.get();
+            long next = Math.max(current, now) + rate.intervalNanos();
+            long debt = next - now;
+            if (debt > rate.burstNanos()) {
+                rejections.get(key).increment();
+                return debt - rate.burstNanos();
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
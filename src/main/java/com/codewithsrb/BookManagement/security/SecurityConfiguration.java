@@ -58,6 +58,7 @@ public class SecurityConfiguration {
                 .authorizeHttpRequests(configurer -> configurer
                         .requestMatchers("/books/register", "/books/login").permitAll()
                         .requestMatchers(toH2Console()).permitAll()
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
                         .requestMatchers("/books/**").hasAnyAuthority("ROLE_ADMIN", "ROLE_USER")
                         .anyRequest()
                         .authenticated())
@@ -73,6 +74,7 @@ public class SecurityConfiguration {
         DaoAuthenticationProvider daoAuthenticationProvider = new DaoAuthenticationProvider();
         daoAuthenticationProvider.setUserDetailsService(userDetailsService());
         daoAuthenticationProvider.setPasswordEncoder(passwordEncoder);
+        daoAuthenticationProvider.setUserDetailsPasswordService(userDetailsServiceImpl);
         return daoAuthenticationProvider;
     }
 
@@ -0,0 +1,76 @@
+package com.codewithsrb.BookManagement.service;
+
+import com.codewithsrb.BookManagement.model.Book;
+import com.codewithsrb.BookManagement.model.BookChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Weak ETags for the books and the catalog which are known without reading or rendering any book. They are weak as the same
+ * content is sent as JSON, CBOR, Smile or Avro and compressed or not, tomcat does not compress responses with a strong ETag.
+ * A book's ETag is its version, remembered from the last read or committed write of it. The catalog ETag is a counter
+ * of the committed book changes, prefixed by the start time of this instance as the counter starts over on every start.
+ * Writes made on other nodes reach this one through the book topic, consumed by every node in a group of its own, and change
+ * the ETags here as well. Until that event arrives, a request here can still be answered 304 against the ETag before the write.
+ */
+@Service
+public class BookETagService {
+
+    private static final int MAX_REMEMBERED_VERSIONS = 100_000;
+
+    private final long epoch = System.currentTimeMillis();
+    private final AtomicLong catalogVersion = new AtomicLong();
+    private final Cache<Integer, Long> bookVersions = Caffeine.newBuilder()
+            .maximumSize(MAX_REMEMBERED_VERSIONS)
+            .build();
+
+    public String catalogETag() {
+        return "W/\"catalog-" + epoch + "-" + catalogVersion.get() + "\"";
+    }
+
+    /**
+     * The ETag of the book when its version is known here, null when the book has to be read to find it out.
+     */
+    public String bookETag(int id) {
+        Long version = bookVersions.getIfPresent(id);
+        return version == null ? null : toETag(id, version);
+    }
+
+    /**
+     * Remembers the version of a book which was read and returns its ETag, null for a book without a version.
+     */
+    public String bookETag(Book book) {
+        if (Objects.isNull(book) || Objects.isNull(book.getVersion())) {
+            return null;
+        }
+        bookVersions.put(book.getId(), book.getVersion());
+        return toETag(book.getId(), book.getVersion());
+    }
+
+    @TransactionalEventListener
+    public void onBookChanged(BookChangedEvent event) {
+        if (event.isDeleted() || Objects.isNull(event.getBook().getVersion())) {
+            bookVersions.invalidate(event.getBookId());
+        } else {
+            bookVersions.put(event.getBookId(), event.getBook().getVersion());
+        }
+        catalogVersion.incrementAndGet();
+    }
+
+    /**
+     * A book changed somewhere else, its version is read again the next time and the catalog ETag changes.
+     */
+    public void invalidate(int id) {
+        bookVersions.invalidate(id);
+        catalogVersion.incrementAndGet();
+    }
+
+    private static String toETag(int id, long version) {
+        return "W/\"book-" + id + "-" + version + "\"";
+    }
+}
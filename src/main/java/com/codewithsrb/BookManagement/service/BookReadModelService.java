@@ -0,0 +1,104 @@
+package com.codewithsrb.BookManagement.service;
+
+import com.codewithsrb.BookManagement.configuration.ReadModelProperties;
+import com.codewithsrb.BookManagement.model.Book;
+import com.codewithsrb.BookManagement.model.BookPage;
+import com.codewithsrb.BookManagement.schema.BookKey;
+import com.codewithsrb.BookManagement.schema.BookValue;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Read model of the catalog materialized from the book topic, keyed by BookId. A value replaces the book and a tombstone removes it.
+ * The books keep the version published with them, so their ETags are the same as when they are read from the database.
+ * The reads are served from here only when the read model is enabled and every assigned partition has been read up to its end once,
+ * until then they keep going to the database. The remaining lag is reported as book.read.model.lag.
+ */
+@Service
+@Slf4j
+public class BookReadModelService {
+
+    private final ReadModelProperties readModelProperties;
+    private final ConcurrentNavigableMap<Integer, Book> books = new ConcurrentSkipListMap<>();
+    private final Map<TopicPartition, Long> lagByPartition = new ConcurrentHashMap<>();
+    private volatile boolean caughtUp;
+
+    public BookReadModelService(ReadModelProperties readModelProperties, MeterRegistry meterRegistry) {
+        this.readModelProperties = readModelProperties;
+        Gauge.builder("book.read.model.lag", this, BookReadModelService::getLag)
+                .description("Records of the book topic not yet applied to the read model")
+                .register(meterRegistry);
+        Gauge.builder("book.read.model.books", books, Map::size)
+                .description("Books held by the read model")
+                .register(meterRegistry);
+    }
+
+    public boolean isServing() {
+        return readModelProperties.isEnabled() && caughtUp;
+    }
+
+    public long getLag() {
+        return lagByPartition.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    public void apply(BookKey key, BookValue value) {
+        if (Objects.isNull(value)) {
+            books.remove(key.getBookId());
+            return;
+        }
+        books.put(key.getBookId(), Book.builder()
+                .id(key.getBookId())
+                .title(Objects.toString(value.getTitle(), null))
+                .author(Objects.toString(value.getAuthor(), null))
+                .bookLanguage(Objects.toString(value.getBookLanguage(), null))
+                .price(value.getPrice())
+                .version(value.getVersion())
+                .build());
+    }
+
+    /**
+     * Records how far behind the end of each assigned partition the read model is, a partition with unknown lag counts as behind.
+     */
+    public void updateLag(Collection<TopicPartition> assignment, Map<TopicPartition, OptionalLong> currentLag) {
+        lagByPartition.keySet().retainAll(assignment);
+        boolean allCaughtUp = !assignment.isEmpty();
+        for (TopicPartition partition : assignment) {
+            OptionalLong lag = currentLag.getOrDefault(partition, OptionalLong.empty());
+            lag.ifPresent(records -> lagByPartition.put(partition, records));
+            allCaughtUp &= lag.isPresent() && lag.getAsLong() == 0;
+        }
+        if (allCaughtUp && !caughtUp) {
+            caughtUp = true;
+            log.info("Read model caught up with {} books, serving reads from it", books.size());
+        }
+    }
+
+    public BookPage retrieveAllBooks(int after, int limit) {
+        BookService.validatePageLimit(limit);
+        List<Book> page = new ArrayList<>(Math.min(limit, books.size()));
+        for (Book book : books.tailMap(after, false).values()) {
+            if (page.size() == limit) {
+                return new BookPage(page, page.get(limit - 1).getId());
+            }
+            page.add(book);
+        }
+        return new BookPage(page, null);
+    }
+
+    public Book retrieveBookById(int id) {
+        return books.get(id);
+    }
+}
@@ -0,0 +1,309 @@
+package com.codewithsrb.BookManagement.service;
+
+import com.codewithsrb.BookManagement.model.Book;
+import com.codewithsrb.BookManagement.model.BookChangedEvent;
+import com.codewithsrb.BookManagement.repository.BookRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * In-memory inverted index over the book titles and authors. Terms are case folded and stripped of accents,
+ * every query term matches indexed terms by prefix and all the query terms have to match.
+ * Title matches rank above author matches and whole word matches rank above prefix matches.
+ * The index is built from the database once the application is ready and kept up to date from committed book changes.
+ * A search holds the read lock and a change the write lock, so a search never sees a book half way through being re-indexed.
+ * The ranked results of a single broad prefix, which would otherwise score thousands of books on every query, are kept
+ * until a book with a term starting with that prefix changes.
+ */
+@Service
+@Slf4j
+public class BookSearchService {
+
+    private static final String INVALID_SEARCH_LIMIT = "Search limit must be between 1 and %s";
+    private static final int MAX_SEARCH_LIMIT = 100;
+    private static final double TITLE_WEIGHT = 2;
+    private static final double AUTHOR_WEIGHT = 1;
+    private static final double WHOLE_TERM_BOOST = 3;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final int BROAD_PREFIX_POSTINGS = 1_000;
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern TERM_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final BookRepository bookRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Map<Integer, Book> books = new ConcurrentHashMap<>();
+    private final NavigableMap<String, Set<Integer>> titleIndex = new ConcurrentSkipListMap<>();
+    private final NavigableMap<String, Set<Integer>> authorIndex = new ConcurrentSkipListMap<>();
+    private final Map<String, List<ScoredBook>> broadPrefixResults = new ConcurrentHashMap<>();
+    private final ReadWriteLock indexLock = new ReentrantReadWriteLock();
+
+    public BookSearchService(BookRepository bookRepository, EntityManager entityManager, PlatformTransactionManager transactionManager) {
+        this.bookRepository = bookRepository;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Streams the whole catalog into the index, indexed books are detached to keep the persistence context empty.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndex() {
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<Book> allBooks = bookRepository.streamAllByOrderByIdAsc()) {
+                allBooks.forEach(book -> {
+                    index(book);
+                    entityManager.detach(book);
+                });
+            }
+        });
+        log.info("Search index built with {} books", books.size());
+    }
+
+    @TransactionalEventListener
+    public void onBookChanged(BookChangedEvent event) {
+        if (event.isDeleted()) {
+            remove(event.getBookId());
+        } else {
+            index(event.getBook());
+        }
+    }
+
+    /**
+     * Candidates come from the query term with the fewest postings, the other terms are only checked for membership,
+     * and the best books are kept in a bounded heap, so a query never scores or sorts more books than its rarest term matches.
+     * A query term expands to at most {@value #MAX_PREFIX_EXPANSIONS} indexed terms per field, the whole word match first.
+     * A single term matching at least {@value #BROAD_PREFIX_POSTINGS} postings is ranked once up to the maximum limit,
+     * the following searches for it only cut that ranking to their limit.
+     */
+    public List<Book> search(String query, int limit) {
+        if (limit < 1 || limit > MAX_SEARCH_LIMIT) {
+            throw new IllegalArgumentException(String.format(INVALID_SEARCH_LIMIT, MAX_SEARCH_LIMIT));
+        }
+        indexLock.readLock().lock();
+        try {
+            return searchIndex(query, limit);
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    private List<Book> searchIndex(String query, int limit) {
+        Set<String> terms = tokenize(query);
+        List<TermPostings> queryPostings = new ArrayList<>();
+        for (String term : terms) {
+            TermPostings termPostings = new TermPostings();
+            termPostings.collect(titleIndex, term, TITLE_WEIGHT);
+            termPostings.collect(authorIndex, term, AUTHOR_WEIGHT);
+            if (termPostings.size == 0) {
+                return Collections.emptyList();
+            }
+            queryPostings.add(termPostings);
+        }
+        if (queryPostings.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (queryPostings.size() == 1 && queryPostings.get(0).size >= BROAD_PREFIX_POSTINGS) {
+            List<ScoredBook> ranking = broadPrefixResults.computeIfAbsent(terms.iterator().next(), term -> rank(queryPostings, MAX_SEARCH_LIMIT));
+            return books(ranking.subList(0, Math.min(limit, ranking.size())));
+        }
+        return books(rank(queryPostings, limit));
+    }
+
+    private static List<ScoredBook> rank(List<TermPostings> queryPostings, int limit) {
+        queryPostings.sort(Comparator.comparingInt(termPostings -> termPostings.size));
+
+        Map<Integer, Double> candidates = queryPostings.get(0).scores();
+        List<TermPostings> otherTerms = queryPostings.subList(1, queryPostings.size());
+        otherTerms.forEach(termPostings -> termPostings.prepareLookups(candidates.size()));
+        PriorityQueue<ScoredBook> topBooks = new PriorityQueue<>(limit + 1, ScoredBook.RANK_ORDER.reversed());
+        candidates.forEach((id, rarestTermScore) -> {
+            double score = score(otherTerms, id, rarestTermScore);
+            if (score > 0) {
+                topBooks.offer(new ScoredBook(id, score));
+                if (topBooks.size() > limit) {
+                    topBooks.poll();
+                }
+            }
+        });
+        return topBooks.stream()
+                .sorted(ScoredBook.RANK_ORDER)
+                .toList();
+    }
+
+    private List<Book> books(List<ScoredBook> ranking) {
+        return ranking.stream()
+                .map(scoredBook -> books.get(scoredBook.id))
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private static double score(List<TermPostings> otherTerms, Integer id, double rarestTermScore) {
+        double score = rarestTermScore;
+        for (TermPostings termPostings : otherTerms) {
+            double termScore = termPostings.score(id);
+            if (termScore == 0) {
+                return 0;
+            }
+            score += termScore;
+        }
+        return score;
+    }
+
+    private void index(Book book) {
+        indexLock.writeLock().lock();
+        try {
+            remove(book.getId());
+            books.put(book.getId(), book);
+            tokenize(book.getTitle()).forEach(term -> addToIndex(titleIndex, term, book.getId()));
+            tokenize(book.getAuthor()).forEach(term -> addToIndex(authorIndex, term, book.getId()));
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+    }
+
+    private void remove(int id) {
+        indexLock.writeLock().lock();
+        try {
+            Book indexedBook = books.remove(id);
+            if (indexedBook != null) {
+                tokenize(indexedBook.getTitle()).forEach(term -> removeFromIndex(titleIndex, term, id));
+                tokenize(indexedBook.getAuthor()).forEach(term -> removeFromIndex(authorIndex, term, id));
+            }
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+    }
+
+    private void addToIndex(NavigableMap<String, Set<Integer>> index, String term, int id) {
+        index.computeIfAbsent(term, key -> ConcurrentHashMap.newKeySet()).add(id);
+        evictBroadPrefixes(term);
+    }
+
+    private void removeFromIndex(NavigableMap<String, Set<Integer>> index, String term, int id) {
+        evictBroadPrefixes(term);
+        Set<Integer> ids = index.get(term);
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                index.remove(term);
+            }
+        }
+    }
+
+    /**
+     * A change to the postings of a term changes the ranking of every prefix of it and of no other query term.
+     */
+    private void evictBroadPrefixes(String term) {
+        if (!broadPrefixResults.isEmpty()) {
+            for (int length = 1; length <= term.length(); length++) {
+                broadPrefixResults.remove(term.substring(0, length));
+            }
+        }
+    }
+
+    private static Set<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return Collections.emptySet();
+        }
+        String folded = COMBINING_MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+        Set<String> terms = new LinkedHashSet<>();
+        for (String term : TERM_SEPARATOR.split(folded)) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Postings of every indexed term which one query term is a prefix of, weighted by field and whole term match.
+     */
+    private static class TermPostings {
+
+        private final List<Posting> postings = new ArrayList<>();
+        private int size;
+        private Map<Integer, Double> scores;
+
+        private void collect(NavigableMap<String, Set<Integer>> index, String term, double fieldWeight) {
+            index.subMap(term, true, term + Character.MAX_VALUE, false).entrySet().stream()
+                    .limit(MAX_PREFIX_EXPANSIONS)
+                    .forEach(entry -> {
+                        double weight = entry.getKey().length() == term.length() ? fieldWeight * WHOLE_TERM_BOOST : fieldWeight;
+                        postings.add(new Posting(entry.getValue(), weight));
+                        size += entry.getValue().size();
+                    });
+        }
+
+        /**
+         * Scores every book matching this term at once, when that is cheaper than probing each posting per candidate.
+         */
+        private void prepareLookups(int candidateCount) {
+            if (postings.size() > 1 && (long) candidateCount * postings.size() > size) {
+                scores();
+            }
+        }
+
+        private Map<Integer, Double> scores() {
+            if (scores == null) {
+                scores = new HashMap<>(size * 4 / 3 + 1);
+                postings.forEach(posting -> posting.ids.forEach(id -> scores.merge(id, posting.weight, Double::sum)));
+            }
+            return scores;
+        }
+
+        private double score(Integer id) {
+            if (scores != null) {
+                return scores.getOrDefault(id, 0d);
+            }
+            double score = 0;
+            for (Posting posting : postings) {
+                if (posting.ids.contains(id)) {
+                    score += posting.weight;
+                }
+            }
+            return score;
+        }
+    }
+
+    private static class Posting {
+
+        private final Set<Integer> ids;
+        private final double weight;
+
+        private Posting(Set<Integer> ids, double weight) {
+            this.ids = ids;
+            this.weight = weight;
+        }
+    }
+
+    private static class ScoredBook {
+
+        private static final Comparator<ScoredBook> RANK_ORDER = Comparator.<ScoredBook>comparingDouble(scoredBook -> scoredBook.score).reversed()
+                .thenComparingInt(scoredBook -> scoredBook.id);
+
+        private final int id;
+        private final double score;
+
+        private ScoredBook(int id, double score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+}
\ No newline at end of file
@@ -1,46 +1,135 @@
 package com.codewithsrb.BookManagement.service;
 
 import com.codewithsrb.BookManagement.exception.ApiException;
+import com.codewithsrb.BookManagement.exception.ConflictException;
 import com.codewithsrb.BookManagement.exception.ResourceNotFoundException;
 import com.codewithsrb.BookManagement.model.Book;
+import com.codewithsrb.BookManagement.model.BookBatchItem;
+import com.codewithsrb.BookManagement.model.BookChangedEvent;
+import com.codewithsrb.BookManagement.model.BookDeleteResult;
+import com.codewithsrb.BookManagement.model.BookPage;
+import com.codewithsrb.BookManagement.model.BookPatch;
+import com.codewithsrb.BookManagement.model.OutboxEvent;
 import com.codewithsrb.BookManagement.repository.BookRepository;
-import com.codewithsrb.BookManagement.schema.BookKey;
-import com.codewithsrb.BookManagement.schema.BookValue;
+import com.codewithsrb.BookManagement.repository.OutboxRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import io.micrometer.core.annotation.Timed;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import static com.codewithsrb.BookManagement.configuration.CacheConfiguration.BOOKS_CACHE;
 
 /**
  * Service class which interacts with the database to process the operation related to books.
  */
 @Service
 @Slf4j
+@Timed(value = "book.service", description = "Time spent in the book service operations")
 public class BookService {
 
     private final BookRepository bookRepository;
-    private final KafkaProducerService kafkaProducerService;
+    private final OutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter exportWriter;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
 
     private static final String NO_BOOK_FOUND_FOR_ID = "No book exists for the given id: %s";
     private static final String API_EXCEPTION = "An error occurred. Please try again";
+    private static final String INVALID_PAGE_SIZE = "Page limit must be between 1 and %s";
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int EXPORT_FLUSH_INTERVAL = 100;
+    private static final String INVALID_BATCH_SIZE = "Batch must contain between 1 and %s books";
+    private static final String MISSING_TITLE = "Book title cannot be null or empty";
+    private static final String MISSING_AUTHOR = "Book author cannot be null";
+    private static final String MISSING_LANGUAGE = "Book language cannot be null";
+    private static final String STALE_VERSION = "Book %s has been changed since version %s, reload it and retry";
+    private static final String CREATED = "CREATED";
+    private static final String REJECTED = "REJECTED";
+    private static final int MAX_BATCH_SIZE = 5000;
+    private static final int DELETE_CHUNK_SIZE = 1000;
 
-    public BookService(BookRepository bookRepository, KafkaProducerService kafkaProducerService) {
+    public BookService(BookRepository bookRepository, OutboxRepository outboxRepository, ObjectMapper objectMapper, EntityManager entityManager,
+                       ApplicationEventPublisher eventPublisher) {
         this.bookRepository = bookRepository;
-        this.kafkaProducerService = kafkaProducerService;
+        this.outboxRepository = outboxRepository;
+        this.objectMapper = objectMapper;
+        // the export flushes every EXPORT_FLUSH_INTERVAL books, not after every book written
+        this.exportWriter = objectMapper.writerFor(Book.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Transactional(readOnly = true)
+    public BookPage retrieveAllBooks(int after, int limit) {
+        validatePageLimit(limit);
+        // one extra row tells us whether another page exists without a count query
+        List<Book> books = bookRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(limit + 1));
+        if (CollectionUtils.isEmpty(books)) {
+            return new BookPage(Collections.emptyList(), null);
+        }
+        if (books.size() > limit) {
+            List<Book> page = books.subList(0, limit);
+            return new BookPage(page, page.get(limit - 1).getId());
+        }
+        return new BookPage(books, null);
     }
 
-    public List<Book> retrieveAllBooks() {
-        List<Book> allBooks = bookRepository.findAll();
-        if (!CollectionUtils.isEmpty(allBooks)) {
-            return allBooks;
-        } else {
-            return Collections.emptyList();
+    static void validatePageLimit(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException(String.format(INVALID_PAGE_SIZE, MAX_PAGE_SIZE));
         }
     }
 
+    /**
+     * Writes the whole catalog as newline delimited JSON while the rows are read, so memory stays
+     * flat whatever the catalog size. Written books are detached to keep the persistence context empty.
+     */
+    @Transactional(readOnly = true)
+    public void exportAllBooks(OutputStream outputStream) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        try (Stream<Book> books = bookRepository.streamAllByOrderByIdAsc()) {
+            Iterator<Book> iterator = books.iterator();
+            int written = 0;
+            while (iterator.hasNext()) {
+                Book book = iterator.next();
+                exportWriter.writeValue(generator, book);
+                generator.writeRaw('\n');
+                entityManager.detach(book);
+                if (++written % EXPORT_FLUSH_INTERVAL == 0) {
+                    generator.flush();
+                }
+            }
+        }
+        generator.flush();
+    }
+
+    @Cacheable(cacheNames = BOOKS_CACHE, key = "#id", unless = "#result == null")
+    @Transactional(readOnly = true)
     public Book retrieveBookById(int id) {
         try {
             Optional<Book> retrievedBook = bookRepository.findById(id);
@@ -51,10 +140,12 @@ public class BookService {
         }
     }
 
+    @Transactional
     public Book createNewBook(Book book) {
         try {
             Book createdBook = bookRepository.save(book);
-            sendToKafka(createdBook);
+            outboxRepository.save(toOutboxEvent(createdBook));
+            eventPublisher.publishEvent(new BookChangedEvent(createdBook.getId(), createdBook));
             return createdBook;
         } catch (IllegalArgumentException exception) {
             log.error(exception.getMessage());
@@ -64,6 +155,63 @@ public class BookService {
         }
     }
 
+    /**
+     * Creates the valid books of the batch and their outbox events with JDBC batch inserts in a single transaction,
+     * the relay then publishes the events in one producer burst. Invalid books are reported without failing the rest of the batch.
+     */
+    @Transactional
+    public List<BookBatchItem> createNewBooks(List<Book> books) {
+        if (CollectionUtils.isEmpty(books) || books.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException(String.format(INVALID_BATCH_SIZE, MAX_BATCH_SIZE));
+        }
+        String[] rejections = new String[books.size()];
+        List<Book> validBooks = new ArrayList<>(books.size());
+        for (int index = 0; index < books.size(); index++) {
+            Book book = books.get(index);
+            rejections[index] = rejectionReason(book);
+            if (rejections[index] == null) {
+                book.setId(0);
+                validBooks.add(book);
+            }
+        }
+        try {
+            List<Book> createdBooks = bookRepository.saveAll(validBooks);
+            outboxRepository.saveAll(createdBooks.stream().map(BookService::toOutboxEvent).toList());
+            createdBooks.forEach(createdBook -> eventPublisher.publishEvent(new BookChangedEvent(createdBook.getId(), createdBook)));
+        } catch (Exception exception) {
+            log.error(exception.getMessage());
+            throw new ApiException(API_EXCEPTION);
+        }
+
+        List<BookBatchItem> results = new ArrayList<>(books.size());
+        for (int index = 0; index < books.size(); index++) {
+            if (rejections[index] == null) {
+                results.add(new BookBatchItem(index, books.get(index).getId(), CREATED, null));
+            } else {
+                results.add(new BookBatchItem(index, null, REJECTED, rejections[index]));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * The reason a book of a batch is rejected, null when it can be created. The book event needs an author and a language.
+     */
+    private static String rejectionReason(Book book) {
+        if (book == null || StringUtils.isBlank(book.getTitle())) {
+            return MISSING_TITLE;
+        }
+        if (book.getAuthor() == null) {
+            return MISSING_AUTHOR;
+        }
+        if (book.getBookLanguage() == null) {
+            return MISSING_LANGUAGE;
+        }
+        return null;
+    }
+
+    @Transactional
+    @CacheEvict(cacheNames = BOOKS_CACHE, key = "#id")
     public Book updateExistingBook(int id, Book bookToUpdate) {
         try {
             Optional<Book> optionalExistingBook = bookRepository.findById(id);
@@ -73,7 +221,11 @@ public class BookService {
                 existingBook.setAuthor(bookToUpdate.getAuthor());
                 existingBook.setBookLanguage(bookToUpdate.getBookLanguage());
                 existingBook.setPrice(bookToUpdate.getPrice());
-                return bookRepository.save(existingBook);
+                // flushed right away for the incremented version, the outbox event carries it
+                Book updatedBook = bookRepository.saveAndFlush(existingBook);
+                outboxRepository.save(toOutboxEvent(updatedBook));
+                eventPublisher.publishEvent(new BookChangedEvent(id, updatedBook));
+                return updatedBook;
             } else {
                 throw new ResourceNotFoundException(String.format(NO_BOOK_FOUND_FOR_ID, id));
             }
@@ -83,32 +235,91 @@ public class BookService {
         }
     }
 
+    /**
+     * Changes only the supplied fields with a single conditional UPDATE instead of loading and merging the whole book.
+     * The book is read back once by id for the response and the outbox event.
+     */
+    @Transactional
+    @CacheEvict(cacheNames = BOOKS_CACHE, key = "#id")
+    public Book patchExistingBook(int id, BookPatch bookPatch) {
+        if (bookPatch.getTitle() != null && StringUtils.isBlank(bookPatch.getTitle())) {
+            throw new IllegalArgumentException(MISSING_TITLE);
+        }
+        int updatedRows = bookRepository.patchBook(id, bookPatch.getVersion(), bookPatch.getTitle(), bookPatch.getAuthor(),
+                bookPatch.getBookLanguage(), bookPatch.getPrice());
+        if (updatedRows == 0) {
+            if (!bookRepository.existsById(id)) {
+                throw new ResourceNotFoundException(String.format(NO_BOOK_FOUND_FOR_ID, id));
+            }
+            throw new ConflictException(String.format(STALE_VERSION, id, bookPatch.getVersion()));
+        }
+        Book patchedBook = bookRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException(String.format(NO_BOOK_FOUND_FOR_ID, id)));
+        outboxRepository.save(toOutboxEvent(patchedBook));
+        eventPublisher.publishEvent(new BookChangedEvent(id, patchedBook));
+        return patchedBook;
+    }
+
+    @Transactional
+    @CacheEvict(cacheNames = BOOKS_CACHE, key = "#id")
     public void deleteExistingBook(int id) {
         try {
-            Optional<Book> bookToDelete = bookRepository.findById(id);
-            if (bookToDelete.isPresent()) {
-                bookRepository.deleteById(id);
-            } else {
+            if (bookRepository.deleteByIdIn(List.of(id)) == 0) {
                 throw new ResourceNotFoundException(String.format(NO_BOOK_FOUND_FOR_ID, id));
             }
+            outboxRepository.save(toTombstoneEvent(id));
+            eventPublisher.publishEvent(new BookChangedEvent(id, null));
         } catch (IllegalArgumentException exception) {
             log.error(exception.getMessage());
             throw new IllegalArgumentException(exception);
         }
     }
 
-    private void sendToKafka(Book createdBook) {
-        BookValue value = BookValue.newBuilder()
-                .setTitle(createdBook.getTitle())
-                .setAuthor(createdBook.getAuthor())
-                .setBookLanguage(createdBook.getBookLanguage())
-                .setPrice(createdBook.getPrice())
-                .build();
+    /**
+     * Deletes the books with one set based DELETE per chunk of ids, after a single query per chunk finds which of them exist.
+     * The tombstones are written to the outbox together, so the relay publishes them in one burst.
+     */
+    @Transactional
+    @CacheEvict(cacheNames = BOOKS_CACHE, allEntries = true)
+    public BookDeleteResult deleteExistingBooks(Set<Integer> ids) {
+        if (CollectionUtils.isEmpty(ids) || ids.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException(String.format(INVALID_BATCH_SIZE, MAX_BATCH_SIZE));
+        }
+        List<Integer> sortedIds = new ArrayList<>(new TreeSet<>(ids));
+        List<Integer> deleted = new ArrayList<>(sortedIds.size());
+        List<Integer> notFound = new ArrayList<>();
+        for (int from = 0; from < sortedIds.size(); from += DELETE_CHUNK_SIZE) {
+            List<Integer> chunk = sortedIds.subList(from, Math.min(from + DELETE_CHUNK_SIZE, sortedIds.size()));
+            Set<Integer> existingIds = new TreeSet<>(bookRepository.findExistingIds(chunk));
+            if (!existingIds.isEmpty()) {
+                bookRepository.deleteByIdIn(existingIds);
+            }
+            for (Integer id : chunk) {
+                (existingIds.contains(id) ? deleted : notFound).add(id);
+            }
+        }
+        outboxRepository.saveAll(deleted.stream().map(BookService::toTombstoneEvent).toList());
+        deleted.forEach(id -> eventPublisher.publishEvent(new BookChangedEvent(id, null)));
+        return new BookDeleteResult(deleted, notFound);
+    }
 
-        BookKey key = BookKey.newBuilder()
-                .setBookId(createdBook.getId())
+    private static OutboxEvent toOutboxEvent(Book book) {
+        return OutboxEvent.builder()
+                .bookId(book.getId())
+                .title(book.getTitle())
+                .author(book.getAuthor())
+                .bookLanguage(book.getBookLanguage())
+                .price(book.getPrice())
+                .version(book.getVersion())
+                .createdAt(Instant.now())
                 .build();
+    }
 
-        kafkaProducerService.sendToKafka(key, value);
+    private static OutboxEvent toTombstoneEvent(int id) {
+        return OutboxEvent.builder()
+                .bookId(id)
+                .tombstone(true)
+                .createdAt(Instant.now())
+                .build();
     }
 }
\ No newline at end of file
@@ -1,24 +1,247 @@
 package com.codewithsrb.BookManagement.service;
 
+import com.codewithsrb.BookManagement.configuration.ConsumerProperties;
+import com.codewithsrb.BookManagement.configuration.RetryProperties;
+import com.codewithsrb.BookManagement.schema.BookKey;
+import com.codewithsrb.BookManagement.schema.BookValue;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.avro.specific.SpecificRecord;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.retrytopic.RetryTopicHeaders;
 import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.codewithsrb.BookManagement.configuration.CacheConfiguration.BOOKS_CACHE;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toList;
 
 /**
- * A simple kafka consumer service which is listening to the topic and logging the consumed records.
+ * A simple kafka consumer service which is listening to the topic and logging the consumed records, the group is shared
+ * so every record is handled once across the nodes.
+ * A second listener evicts the books of every consumed event from the local cache and changes their ETags. Its group is unique
+ * to this instance, so every node sees every change and a write made on another node becomes visible here too.
+ * In parallel mode a batch is split by key across a worker pool, records of the same key are still processed in order
+ * and the batch is acknowledged only once every record has been processed.
+ * A record which fails is sent to the retry topic of its next attempt, so the partition it came from keeps flowing.
+ * Every retry topic is consumed by its own container which holds a record back until its delay is over by pausing,
+ * not blocking, the consumer. After the last attempt the record is sent to the error topic with the diagnostic headers.
+ * The workers are virtual threads when spring.threads.virtual.enabled is set, otherwise a fixed pool of platform threads.
+ * When read-model.enabled is set another listener replays the whole topic into the read model, its group is unique
+ * to this instance so every node materializes every partition, and it commits no offsets as the read model lives in memory.
  */
 @Service
 @Slf4j
 public class KafkaConsumerService {
 
+    private static final String WORKER_THREAD_PREFIX = "book-consumer-worker-";
+    private static final String RETRIES = "book.consumer.retries";
+    private static final String DEAD_LETTERS = "book.consumer.dead.letters";
+
+    private final CacheManager cacheManager;
+    private final KafkaProducerService kafkaProducerService;
+    private final ConsumerProperties consumerProperties;
+    private final BookReadModelService bookReadModelService;
+    private final BookETagService bookETagService;
+    private final RetryProperties retryProperties;
+    private final MeterRegistry meterRegistry;
+    private final Executor workerPool;
+    private final DistributionSummary batchSize;
+    private final Timer batchProcessingTimer;
+
+    public KafkaConsumerService(CacheManager cacheManager, KafkaProducerService kafkaProducerService, ConsumerProperties consumerProperties,
+                                BookReadModelService bookReadModelService, BookETagService bookETagService, RetryProperties retryProperties,
+                                @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads, MeterRegistry meterRegistry) {
+        this.cacheManager = cacheManager;
+        this.kafkaProducerService = kafkaProducerService;
+        this.consumerProperties = consumerProperties;
+        this.bookReadModelService = bookReadModelService;
+        this.bookETagService = bookETagService;
+        this.retryProperties = retryProperties;
+        this.meterRegistry = meterRegistry;
+        this.workerPool = createWorkerPool(consumerProperties.getWorkers(), virtualThreads);
+        this.batchSize = DistributionSummary.builder("book.consumer.batch.size")
+                .description("Records received per poll by the book listener")
+                .register(meterRegistry);
+        this.batchProcessingTimer = Timer.builder("book.consumer.batch.processing")
+                .description("Time to process one polled batch before it is acknowledged")
+                .register(meterRegistry);
+    }
+
+    private static Executor createWorkerPool(int workers, boolean virtualThreads) {
+        if (virtualThreads && JavaVersion.getJavaVersion().isEqualOrNewerThan(JavaVersion.TWENTY_ONE)) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(WORKER_THREAD_PREFIX);
+            executor.setVirtualThreads(true);
+            return executor;
+        }
+        return Executors.newFixedThreadPool(workers, new CustomizableThreadFactory(WORKER_THREAD_PREFIX));
+    }
+
     @KafkaListener(topics = "${spring.kafka.consumer.topic}", groupId = "${spring.kafka.consumer.group-id}")
     public void listen(List<ConsumerRecord<SpecificRecord, SpecificRecord>> records, Acknowledgment acknowledgment) {
-        records.forEach(consumerRecord -> log.info(String.format("************ Read the data from offset: %s. Payload: %s *********", consumerRecord.offset(), consumerRecord.value())));
+        batchSize.record(records.size());
+        batchProcessingTimer.record(() -> {
+            if (consumerProperties.isParallel() && records.size() > 1) {
+                processInParallel(records);
+            } else {
+                records.forEach(this::processRecord);
+            }
+        });
+        acknowledgment.acknowledge();
+    }
+
+    /**
+     * Only the changes made from now on matter, the cache of a node which just started is empty anyway.
+     */
+    @KafkaListener(topics = "${spring.kafka.consumer.topic}", groupId = "${spring.kafka.consumer.group-id}.cache.${random.uuid}",
+            properties = "auto.offset.reset=latest")
+    public void invalidate(List<ConsumerRecord<SpecificRecord, SpecificRecord>> records) {
+        Cache booksCache = cacheManager.getCache(BOOKS_CACHE);
+        for (ConsumerRecord<SpecificRecord, SpecificRecord> consumerRecord : records) {
+            if (consumerRecord.key() instanceof BookKey bookKey) {
+                if (Objects.nonNull(booksCache)) {
+                    booksCache.evict(bookKey.getBookId());
+                }
+                bookETagService.invalidate(bookKey.getBookId());
+            }
+        }
+    }
+
+    @KafkaListener(topics = "${spring.kafka.consumer.topic}", groupId = "${spring.kafka.consumer.group-id}.read-model.${random.uuid}",
+            autoStartup = "${read-model.enabled:false}", properties = "auto.offset.reset=earliest")
+    public void materialize(List<ConsumerRecord<SpecificRecord, SpecificRecord>> records, Consumer<?, ?> consumer) {
+        for (ConsumerRecord<SpecificRecord, SpecificRecord> consumerRecord : records) {
+            if (consumerRecord.key() instanceof BookKey bookKey) {
+                bookReadModelService.apply(bookKey, (BookValue) consumerRecord.value());
+                bookETagService.invalidate(bookKey.getBookId());
+            }
+        }
+        Set<TopicPartition> assignment = consumer.assignment();
+        bookReadModelService.updateLag(assignment, assignment.stream().collect(toMap(identity(), consumer::currentLag)));
+    }
+
+    private void processInParallel(List<ConsumerRecord<SpecificRecord, SpecificRecord>> records) {
+        Map<Optional<SpecificRecord>, List<ConsumerRecord<SpecificRecord, SpecificRecord>>> recordsByKey = records.stream()
+                .collect(groupingBy(consumerRecord -> Optional.ofNullable(consumerRecord.key()), LinkedHashMap::new, toList()));
+
+        CompletableFuture<?>[] futures = recordsByKey.values().stream()
+                .map(keyRecords -> CompletableFuture.runAsync(() -> keyRecords.forEach(this::processRecord), workerPool))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(futures).join();
+    }
+
+    /**
+     * Listener of the retry topics, the records of one retry topic are due in the order they were written.
+     * Processing stops at the first record which is not due yet and the rest of the batch is redelivered once it is.
+     */
+    public void retry(List<ConsumerRecord<SpecificRecord, SpecificRecord>> records, Acknowledgment acknowledgment) {
+        for (int index = 0; index < records.size(); index++) {
+            ConsumerRecord<SpecificRecord, SpecificRecord> consumerRecord = records.get(index);
+            long remainingDelay = Long.parseLong(headerValue(consumerRecord.headers(), RetryTopicHeaders.DEFAULT_HEADER_BACKOFF_TIMESTAMP, "0"))
+                    - System.currentTimeMillis();
+            if (remainingDelay > 0) {
+                acknowledgment.nack(index, Duration.ofMillis(remainingDelay));
+                return;
+            }
+            processRecord(consumerRecord);
+        }
         acknowledgment.acknowledge();
     }
-}
\ No newline at end of file
+
+    private void processRecord(ConsumerRecord<SpecificRecord, SpecificRecord> consumerRecord) {
+        try {
+            handle(consumerRecord);
+        } catch (Exception exception) {
+            retryOrDeadLetter(consumerRecord, exception);
+        }
+    }
+
+    void handle(ConsumerRecord<SpecificRecord, SpecificRecord> consumerRecord) {
+        log.info(String.format("************ Read the data from offset: %s. Payload: %s *********", consumerRecord.offset(), consumerRecord.value()));
+    }
+
+    private void retryOrDeadLetter(ConsumerRecord<SpecificRecord, SpecificRecord> consumerRecord, Exception exception) {
+        int attempt = Integer.parseInt(headerValue(consumerRecord.headers(), RetryTopicHeaders.DEFAULT_HEADER_ATTEMPTS, "0")) + 1;
+        Headers headers = diagnosticHeaders(consumerRecord, exception);
+        setHeader(headers, RetryTopicHeaders.DEFAULT_HEADER_ATTEMPTS, String.valueOf(attempt));
+
+        if (attempt > retryProperties.getAttempts()) {
+            log.error("Failed to process the record from offset: {} after {} attempts, sending it to the error topic: {}",
+                    consumerRecord.offset(), retryProperties.getAttempts(), exception.getMessage());
+            kafkaProducerService.sendToErrorTopic(consumerRecord.key(), consumerRecord.value(), headers);
+            meterRegistry.counter(DEAD_LETTERS).increment();
+            return;
+        }
+        long dueAt = System.currentTimeMillis() + retryProperties.delayFor(attempt).toMillis();
+        setHeader(headers, RetryTopicHeaders.DEFAULT_HEADER_BACKOFF_TIMESTAMP, String.valueOf(dueAt));
+        log.warn("Failed to process the record from offset: {}, sending it to retry attempt {}: {}",
+                consumerRecord.offset(), attempt, exception.getMessage());
+        kafkaProducerService.sendToRetryTopic(attempt, consumerRecord.key(), consumerRecord.value(), headers);
+        meterRegistry.counter(RETRIES, "attempt", String.valueOf(attempt)).increment();
+    }
+
+    /**
+     * The original topic, partition and offset are kept from the first failure, the exception is always the latest one.
+     */
+    private static Headers diagnosticHeaders(ConsumerRecord<SpecificRecord, SpecificRecord> consumerRecord, Exception exception) {
+        Headers headers = new RecordHeaders(consumerRecord.headers().toArray());
+        if (headers.lastHeader(KafkaHeaders.DLT_ORIGINAL_TOPIC) == null) {
+            setHeader(headers, KafkaHeaders.DLT_ORIGINAL_TOPIC, consumerRecord.topic());
+            setHeader(headers, KafkaHeaders.DLT_ORIGINAL_PARTITION, String.valueOf(consumerRecord.partition()));
+            setHeader(headers, KafkaHeaders.DLT_ORIGINAL_OFFSET, String.valueOf(consumerRecord.offset()));
+            setHeader(headers, KafkaHeaders.DLT_ORIGINAL_TIMESTAMP, String.valueOf(consumerRecord.timestamp()));
+        }
+        setHeader(headers, KafkaHeaders.DLT_EXCEPTION_FQCN, exception.getClass().getName());
+        setHeader(headers, KafkaHeaders.DLT_EXCEPTION_MESSAGE, String.valueOf(exception.getMessage()));
+        return headers;
+    }
+
+    private static void setHeader(Headers headers, String name, String value) {
+        headers.remove(name);
+        headers.add(name, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String headerValue(Headers headers, String name, String defaultValue) {
+        Header header = headers.lastHeader(name);
+        return header == null ? defaultValue : new String(header.value(), StandardCharsets.UTF_8);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (workerPool instanceof ExecutorService executorService) {
+            executorService.shutdown();
+        }
+    }
+}
@@ -1,37 +1,92 @@
 package com.codewithsrb.BookManagement.service;
 
 import com.codewithsrb.BookManagement.configuration.Topics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.avro.specific.SpecificRecord;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Headers;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
-import org.springframework.util.ObjectUtils;
 
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 /**
  * A simple kafka producer service which sends the data to kafka topic
  * and logs the info before and after sending the data.
+ * The time until the broker acknowledges each record and the failed sends are recorded per topic.
  */
 @Service
 @Slf4j
 public class KafkaProducerService {
 
+    private static final String SEND_TIMER = "book.producer.send";
+    private static final String SEND_FAILURES = "book.producer.send.failures";
+    private static final String TOPIC_TAG = "topic";
+    private static final String RESULT_TAG = "result";
+
     private final Topics topics;
 
     private final KafkaTemplate<SpecificRecord, SpecificRecord> kafkaTemplate;
 
-    public KafkaProducerService(Topics topics, KafkaTemplate<SpecificRecord, SpecificRecord> kafkaTemplate) {
+    private final MeterRegistry meterRegistry;
+
+    public KafkaProducerService(Topics topics, KafkaTemplate<SpecificRecord, SpecificRecord> kafkaTemplate, MeterRegistry meterRegistry) {
         this.topics = topics;
         this.kafkaTemplate = kafkaTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Sends all the records back to back so the producer can pack them into as few requests as possible,
+     * flushes once and waits until the broker acknowledged every record. Fails if any record failed.
+     */
+    public void sendAllToKafka(List<Pair<SpecificRecord, SpecificRecord>> records) {
+
+        log.info("********  Producing {} messages to kafka topic : {}  *******", records.size(), topics.getInputOutputTopic());
+        CompletableFuture<?>[] futures = records.stream()
+                .map(keyValue -> send(topics.getInputOutputTopic(), keyValue.getKey(), keyValue.getValue()))
+                .toArray(CompletableFuture[]::new);
+        kafkaTemplate.flush();
+        CompletableFuture.allOf(futures).join();
+        log.info("********  Produced {} messages to kafka topic : {}  *********", records.size(), topics.getInputOutputTopic());
     }
 
-    public void sendToKafka(SpecificRecord key, SpecificRecord specificRecord) {
+    /**
+     * Sends a record which failed to be processed to the retry topic of the given attempt and waits for the broker to acknowledge it.
+     */
+    public void sendToRetryTopic(int attempt, SpecificRecord key, SpecificRecord specificRecord, Headers headers) {
 
-        log.info("********  Producing message to kafka topic : {}  *******", topics.getInputOutputTopic());
-        kafkaTemplate.send(topics.getInputOutputTopic(), key, specificRecord);
-        log.info("********  Produced message to kafka topic : {}  *********", topics.getInputOutputTopic());
+        String retryTopic = topics.getRetryTopic(attempt);
+        send(new ProducerRecord<>(retryTopic, null, key, specificRecord, headers)).join();
+        log.info("********  Produced failed message to kafka topic : {}  *********", retryTopic);
+    }
+
+    /**
+     * Sends a record which could not be processed to the error topic and waits for the broker to acknowledge it.
+     */
+    public void sendToErrorTopic(SpecificRecord key, SpecificRecord specificRecord, Headers headers) {
+
+        send(new ProducerRecord<>(topics.getErrorTopic(), null, key, specificRecord, headers)).join();
+        log.info("********  Produced failed message to kafka topic : {}  *********", topics.getErrorTopic());
+    }
+
+    private CompletableFuture<SendResult<SpecificRecord, SpecificRecord>> send(String topic, SpecificRecord key, SpecificRecord specificRecord) {
+        return send(new ProducerRecord<>(topic, key, specificRecord));
+    }
 
+    private CompletableFuture<SendResult<SpecificRecord, SpecificRecord>> send(ProducerRecord<SpecificRecord, SpecificRecord> producerRecord) {
+        String topic = producerRecord.topic();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        return kafkaTemplate.send(producerRecord).whenComplete((result, exception) -> {
+            sample.stop(meterRegistry.timer(SEND_TIMER, TOPIC_TAG, topic, RESULT_TAG, exception == null ? "success" : "failure"));
+            if (exception != null) {
+                meterRegistry.counter(SEND_FAILURES, TOPIC_TAG, topic).increment();
+            }
+        });
     }
-}
+}
\ No newline at end of file
@@ -0,0 +1,185 @@
+package com.codewithsrb.BookManagement.service;
+
+import com.codewithsrb.BookManagement.configuration.OutboxProperties;
+import com.codewithsrb.BookManagement.model.OutboxEvent;
+import com.codewithsrb.BookManagement.repository.OutboxRepository;
+import com.codewithsrb.BookManagement.schema.BookKey;
+import com.codewithsrb.BookManagement.schema.BookValue;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.avro.specific.SpecificRecord;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.apache.kafka.common.errors.SerializationException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Background relay which drains the book outbox to the input/output topic in id ordered batches.
+ * Events are deleted only after the broker acknowledged the whole batch, which gives at least once delivery.
+ * A batch failing because an event cannot be serialized is published again one event at a time. An event which fails alone that way is
+ * marked failed after outbox.relay.max-attempts and skipped from then on, so it never blocks the events behind it.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(value = "outbox.relay.enabled", matchIfMissing = true)
+public class OutboxRelayService {
+
+    private static final String NONE = "None";
+    private static final int MAX_FAILURE_REASON_LENGTH = 255;
+
+    private final OutboxRepository outboxRepository;
+    private final KafkaProducerService kafkaProducerService;
+    private final OutboxProperties outboxProperties;
+    private final Counter relayedEvents;
+    private final Counter failedEvents;
+    private final Timer relayBatchTimer;
+
+    public OutboxRelayService(OutboxRepository outboxRepository, KafkaProducerService kafkaProducerService, OutboxProperties outboxProperties, MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.kafkaProducerService = kafkaProducerService;
+        this.outboxProperties = outboxProperties;
+        this.relayedEvents = Counter.builder("outbox.relay.events")
+                .description("Book events published from the outbox")
+                .register(meterRegistry);
+        this.failedEvents = Counter.builder("outbox.relay.failed")
+                .description("Book events which could never be published and were marked failed")
+                .register(meterRegistry);
+        this.relayBatchTimer = Timer.builder("outbox.relay.batch")
+                .description("Time to publish and remove one outbox batch")
+                .register(meterRegistry);
+        Gauge.builder("outbox.lag.events", outboxRepository, OutboxRepository::countByFailedAtIsNull)
+                .description("Book events waiting in the outbox")
+                .register(meterRegistry);
+        Gauge.builder("outbox.failed.events", outboxRepository, OutboxRepository::countByFailedAtIsNotNull)
+                .description("Book events kept in the outbox as failed")
+                .register(meterRegistry);
+        Gauge.builder("outbox.lag.seconds", this, OutboxRelayService::oldestEventAgeSeconds)
+                .description("Age of the oldest book event waiting in the outbox")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.interval-ms:200}")
+    public void relay() {
+        int batchSize = outboxProperties.getBatchSize();
+        List<OutboxEvent> events;
+        do {
+            events = outboxRepository.findByFailedAtIsNullOrderByIdAsc(Limit.of(batchSize));
+            if (events.isEmpty() || !publish(events)) {
+                return;
+            }
+        } while (events.size() == batchSize);
+    }
+
+    private boolean publish(List<OutboxEvent> events) {
+        Timer.Sample sample = Timer.start();
+        try {
+            send(events);
+            return true;
+        } catch (Exception exception) {
+            if (isUnpublishable(exception)) {
+                log.error("Failed to relay {} outbox events, publishing them one by one: {}", events.size(), exception.getMessage());
+                return publishOneByOne(events);
+            }
+            log.error("Failed to relay {} outbox events, retrying on the next run: {}", events.size(), exception.getMessage());
+            return false;
+        } finally {
+            sample.stop(relayBatchTimer);
+        }
+    }
+
+    /**
+     * Publishes the events of a batch which did not serialize one at a time. Stops at the first event failing for a reason which
+     * may go away, a broker or schema registry outage, and retries it on the next run.
+     */
+    private boolean publishOneByOne(List<OutboxEvent> events) {
+        for (OutboxEvent event : events) {
+            try {
+                send(List.of(event));
+            } catch (Exception exception) {
+                if (!isUnpublishable(exception)) {
+                    log.error("Failed to relay outbox event {}, retrying on the next run: {}", event.getId(), exception.getMessage());
+                    return false;
+                }
+                event.setAttempts(event.getAttempts() + 1);
+                if (event.getAttempts() < outboxProperties.getMaxAttempts()) {
+                    outboxRepository.save(event);
+                    log.error("Outbox event {} could not be published, attempt {}: {}", event.getId(), event.getAttempts(), exception.getMessage());
+                    return false;
+                }
+                event.setFailedAt(Instant.now());
+                event.setFailureReason(StringUtils.abbreviate(exception.getMessage(), MAX_FAILURE_REASON_LENGTH));
+                outboxRepository.save(event);
+                failedEvents.increment();
+                log.error("Outbox event {} of book {} marked failed after {} attempts: {}", event.getId(), event.getBookId(), event.getAttempts(),
+                        exception.getMessage());
+            }
+        }
+        return true;
+    }
+
+    private void send(List<OutboxEvent> events) {
+        kafkaProducerService.sendAllToKafka(events.stream().map(OutboxRelayService::toRecord).toList());
+        outboxRepository.deleteAllInBatch(events);
+        relayedEvents.increment(events.size());
+    }
+
+    /**
+     * True when the record itself is the problem, it does not serialize or is too large, and sending it again cannot succeed.
+     * A serialization failure caused by I/O is the schema registry being unreachable and is retried.
+     */
+    private static boolean isUnpublishable(Throwable exception) {
+        boolean unpublishable = false;
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException) {
+                return false;
+            }
+            if (cause instanceof SerializationException || cause instanceof RecordTooLargeException) {
+                unpublishable = true;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return unpublishable;
+    }
+
+    private double oldestEventAgeSeconds() {
+        return outboxRepository.findFirstByFailedAtIsNullOrderByIdAsc()
+                .map(event -> Duration.between(event.getCreatedAt(), Instant.now()).toMillis() / 1000.0)
+                .orElse(0.0);
+    }
+
+    private static Pair<SpecificRecord, SpecificRecord> toRecord(OutboxEvent event) {
+        BookKey key = BookKey.newBuilder()
+                .setBookId(event.getBookId())
+                .build();
+
+        if (event.isTombstone()) {
+            return Pair.of(key, null);
+        }
+
+        // the schema defaults, the builder keeps a null which the serializer then rejects
+        BookValue value = BookValue.newBuilder()
+                .setTitle(Objects.requireNonNullElse(event.getTitle(), NONE))
+                .setAuthor(Objects.requireNonNullElse(event.getAuthor(), NONE))
+                .setBookLanguage(Objects.requireNonNullElse(event.getBookLanguage(), NONE))
+                .setPrice(event.getPrice())
+                .setVersion(event.getVersion())
+                .build();
+
+        return Pair.of(key, value);
+    }
+}
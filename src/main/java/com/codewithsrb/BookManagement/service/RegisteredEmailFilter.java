@@ -0,0 +1,84 @@
+package com.codewithsrb.BookManagement.service;
+
+import com.codewithsrb.BookManagement.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter of the registered emails. An email it has never seen is definitely not registered, so the registration
+ * can skip the existence query and go straight to the insert. An email it might have seen still needs the query.
+ * The unique email constraint stays the guard, the filter only saves queries, so being built after startup or
+ * missing the registrations of another node only costs queries, never correctness.
+ */
+@Component
+@Slf4j
+public class RegisteredEmailFilter {
+
+    private static final int EXPECTED_EMAILS = 1_000_000;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final UserRepository userRepository;
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    public RegisteredEmailFilter(UserRepository userRepository) {
+        this.userRepository = userRepository;
+        long optimalBits = (long) Math.ceil(-EXPECTED_EMAILS * Math.log(FALSE_POSITIVE_RATE) / (Math.log(2) * Math.log(2)));
+        this.bits = new AtomicLongArray((int) ((optimalBits + 63) / 64));
+        this.bitCount = bits.length() * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / EXPECTED_EMAILS * Math.log(2)));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        userRepository.findAllEmails().forEach(this::add);
+        log.info("Registered email filter loaded");
+    }
+
+    public boolean mightContain(String email) {
+        long hash = hash(email);
+        int firstHash = (int) hash;
+        int secondHash = (int) (hash >>> 32);
+        for (int index = 1; index <= hashCount; index++) {
+            long bit = Math.floorMod(firstHash + (long) index * secondHash, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void add(String email) {
+        long hash = hash(email);
+        int firstHash = (int) hash;
+        int secondHash = (int) (hash >>> 32);
+        for (int index = 1; index <= hashCount; index++) {
+            long bit = Math.floorMod(firstHash + (long) index * secondHash, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = bits.get(word);
+            } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    /**
+     * 64 bit FNV-1a of the email, split in two by the callers to derive all the bit positions (Kirsch-Mitzenmacher).
+     */
+    private static long hash(String email) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int index = 0; index < email.length(); index++) {
+            hash ^= email.charAt(index);
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+}
@@ -5,29 +5,42 @@ import com.codewithsrb.BookManagement.model.UserDetailsImpl;
 import com.codewithsrb.BookManagement.model.UserInfo;
 import com.codewithsrb.BookManagement.repository.UserRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Objects;
 
+import static com.codewithsrb.BookManagement.configuration.CacheConfiguration.USERS_CACHE;
+
 /**
  * This class implements UserDetailsService in order to provide the implementation for the UserDetails
- * from the database.
+ * from the database. A password hashed with a lower work factor than configured is hashed again on the next successful login.
  */
 @Service
 @Slf4j
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
+
+    private static final String EMAIL_ALREADY_USED = "Email already used. Please use new email and try again.";
 
     private final PasswordEncoder passwordEncoder;
     private final UserRepository userRepository;
+    private final RegisteredEmailFilter registeredEmailFilter;
 
-    public UserDetailsServiceImpl(PasswordEncoder passwordEncoder, UserRepository userRepository) {
+    public UserDetailsServiceImpl(PasswordEncoder passwordEncoder, UserRepository userRepository, RegisteredEmailFilter registeredEmailFilter) {
         this.passwordEncoder = passwordEncoder;
         this.userRepository = userRepository;
+        this.registeredEmailFilter = registeredEmailFilter;
     }
 
     @Override
@@ -41,6 +54,8 @@ public class UserDetailsServiceImpl implements UserDetailsService {
         }
     }
 
+    @Cacheable(cacheNames = USERS_CACHE, key = "#email", unless = "#result == null")
+    @Transactional(readOnly = true)
     public UserInfo findUserByEmail(String email) {
         try {
             return userRepository.findByEmail(email);
@@ -50,19 +65,50 @@ public class UserDetailsServiceImpl implements UserDetailsService {
         }
     }
 
+    /**
+     * Registers the user with a single insert, the unique email index rejects an email which is already used.
+     * Any other integrity violation is not about the email and is rethrown as it is.
+     * The existence query only runs for emails the filter might have seen, to save hashing the password of a duplicate.
+     */
+    @CacheEvict(cacheNames = USERS_CACHE, key = "#userInfo.email")
     public UserInfo registerNewUser(UserInfo userInfo) {
-        if (isEmailAlreadyExists(userInfo.getEmail()))
-            throw new ApiException("Email already used. Please use new email and try again.");
+        if (registeredEmailFilter.mightContain(userInfo.getEmail()) && isEmailAlreadyExists(userInfo.getEmail()))
+            throw new ApiException(EMAIL_ALREADY_USED);
         userInfo.setPassword(passwordEncoder.encode(userInfo.getPassword()));
         userInfo.setRole("ROLE_USER");
         try {
-            return userRepository.save(userInfo);
+            UserInfo registeredUser = userRepository.save(userInfo);
+            registeredEmailFilter.add(registeredUser.getEmail());
+            return registeredUser;
+        } catch (DataIntegrityViolationException e) {
+            if (!violatesUniqueEmail(e))
+                throw e;
+            registeredEmailFilter.add(userInfo.getEmail());
+            throw new ApiException(EMAIL_ALREADY_USED);
         } catch (Exception e) {
             log.error("error: " + e.getMessage());
             throw new ApiException("An error occurred while account creation. Please try again.");
         }
     }
 
+    @Override
+    @CacheEvict(cacheNames = USERS_CACHE, key = "#user.username")
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        UserInfo userInfo = userRepository.findByEmail(user.getUsername());
+        userInfo.setPassword(newPassword);
+        log.info("Rehashed the password of the user with the configured work factor");
+        return new UserDetailsImpl(userRepository.save(userInfo));
+    }
+
+    /**
+     * H2 reports the violated index with schema, suffix and the offending row around the constraint name, so the name is only
+     * looked for in it.
+     */
+    private boolean violatesUniqueEmail(DataIntegrityViolationException e) {
+        return e.getCause() instanceof ConstraintViolationException violation
+                && StringUtils.containsIgnoreCase(violation.getConstraintName(), UserInfo.UNIQUE_EMAIL);
+    }
+
     private boolean isEmailAlreadyExists(String email) {
         UserInfo userInfo = userRepository.findByEmail(email);
         return Objects.nonNull(userInfo);
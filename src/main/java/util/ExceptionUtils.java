@@ -1,28 +1,37 @@
 package util;
 
 import com.auth0.jwt.exceptions.InvalidClaimException;
-import com.auth0.jwt.exceptions.SignatureVerificationException;
 import com.auth0.jwt.exceptions.TokenExpiredException;
 import com.codewithsrb.BookManagement.exception.ApiException;
 import com.codewithsrb.BookManagement.model.HttpResponse;
+import com.codewithsrb.BookManagement.model.VerifiedToken.Rejection;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.BadCredentialsException;
 
 import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
 
 import static java.time.LocalDateTime.now;
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
+import static org.springframework.http.HttpStatus.TOO_MANY_REQUESTS;
+import static org.springframework.http.HttpStatus.UNAUTHORIZED;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 
 @Slf4j
 public class ExceptionUtils {
 
     private static final String CUSTOM_ERROR_MESSAGE = "An error occurred. Please try again.";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final PreRenderedError TOKEN_EXPIRED = PreRenderedError.of(BAD_REQUEST, "The access token has expired.");
+    private static final PreRenderedError TOKEN_INVALID_CLAIM = PreRenderedError.of(BAD_REQUEST, "The access token has an invalid claim.");
+    private static final PreRenderedError TOKEN_INVALID = PreRenderedError.of(UNAUTHORIZED, "The access token is invalid.");
+    private static final PreRenderedError RATE_LIMITED = PreRenderedError.of(TOO_MANY_REQUESTS, "Too many requests. Please try again later.");
 
     public static void processError(HttpServletResponse response, Exception exception) {
         HttpResponse httpResponse;
@@ -38,6 +47,35 @@ public class ExceptionUtils {
         log.error(exception.getMessage());
     }
 
+    /**
+     * Answers a rejected access token with its pre-rendered error. Nothing is logged, a client repeating a bad token would flood the log.
+     */
+    public static void processRejectedToken(HttpServletResponse response, Rejection rejection) {
+        PreRenderedError error = switch (rejection) {
+            case EXPIRED -> TOKEN_EXPIRED;
+            case INVALID_CLAIM -> TOKEN_INVALID_CLAIM;
+            case INVALID -> TOKEN_INVALID;
+        };
+        try {
+            error.write(response);
+        } catch (Exception e) {
+            log.error(e.getMessage());
+        }
+    }
+
+    /**
+     * Answers a rate limited request with a 429 telling the client in Retry-After how many seconds to wait, rounded up.
+     */
+    public static void processTooManyRequests(HttpServletResponse response, long waitNanos) {
+        long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        try {
+            RATE_LIMITED.write(response);
+        } catch (Exception e) {
+            log.error(e.getMessage());
+        }
+    }
+
     private static HttpResponse getHttpResponse(HttpServletResponse response, String message, HttpStatus httpStatus) {
         HttpResponse httpResponse = HttpResponse.builder()
                 .timeStamp(now().toString())
@@ -55,11 +93,10 @@ public class ExceptionUtils {
     private static void writeResponse(HttpServletResponse response, HttpResponse httpResponse) {
         try {
             OutputStream outputStream = response.getOutputStream();
-            ObjectMapper mapper = new ObjectMapper();
-            mapper.writeValue(outputStream, httpResponse);
+            MAPPER.writeValue(outputStream, httpResponse);
             outputStream.flush();
         } catch (Exception e) {
             log.error(e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,61 @@
+package util;
+
+import com.codewithsrb.BookManagement.model.HttpResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+
+/**
+ * An error response with a fixed status and reason, rendered by jackson once. Writing it only splices in the current time stamp,
+ * so rejecting a flood of bad requests does not build, serialize or allocate a response per request.
+ */
+public class PreRenderedError {
+
+    private static final byte[] TIME_STAMP = "{\"timeStamp\":\"".getBytes(UTF_8);
+
+    private final HttpStatus httpStatus;
+    private final byte[] afterTimeStamp;
+
+    private PreRenderedError(HttpStatus httpStatus, byte[] afterTimeStamp) {
+        this.httpStatus = httpStatus;
+        this.afterTimeStamp = afterTimeStamp;
+    }
+
+    public static PreRenderedError of(HttpStatus httpStatus, String reason) {
+        try {
+            byte[] rendered = new ObjectMapper().writeValueAsBytes(HttpResponse.builder()
+                    .timeStamp("")
+                    .reason(reason)
+                    .statusCode(httpStatus.value())
+                    .httpStatus(httpStatus)
+                    .build());
+            return new PreRenderedError(httpStatus, Arrays.copyOfRange(rendered, TIME_STAMP.length, rendered.length));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public HttpStatus getHttpStatus() {
+        return httpStatus;
+    }
+
+    public void write(HttpServletResponse response) throws IOException {
+        byte[] timeStamp = TimeStampUtils.currentTimeStamp();
+        response.setStatus(httpStatus.value());
+        response.setContentType(APPLICATION_JSON_VALUE);
+        response.setContentLength(TIME_STAMP.length + timeStamp.length + afterTimeStamp.length);
+        ServletOutputStream outputStream = response.getOutputStream();
+        outputStream.write(TIME_STAMP);
+        outputStream.write(timeStamp);
+        outputStream.write(afterTimeStamp);
+        outputStream.flush();
+    }
+}
@@ -0,0 +1,28 @@
+package util;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The local time stamp of the responses as UTF-8 bytes, formatted once per millisecond instead of once per response.
+ */
+public class TimeStampUtils {
+
+    private static volatile TimeStamp timeStamp = new TimeStamp(0, null);
+
+    private record TimeStamp(long millis, byte[] bytes) {
+    }
+
+    public static byte[] currentTimeStamp() {
+        long now = System.currentTimeMillis();
+        TimeStamp current = timeStamp;
+        if (current.millis() != now) {
+            current = new TimeStamp(now, LocalDateTime.ofInstant(Instant.ofEpochMilli(now), ZoneId.systemDefault()).toString().getBytes(UTF_8));
+            timeStamp = current;
+        }
+        return current.bytes();
+    }
+}
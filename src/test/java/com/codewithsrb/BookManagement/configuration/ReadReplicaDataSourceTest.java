@@ -0,0 +1,151 @@
+package com.codewithsrb.BookManagement.configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Test Class for the read replica routing, using separate in-memory H2 databases for the primary and the two replicas.
+ * Every database holds a single row naming it, so a read tells which database served it.
+ */
+class ReadReplicaDataSourceTest {
+
+    private static final long CONNECTION_TIMEOUT_MS = 250;
+
+    private final String prefix = UUID.randomUUID().toString();
+    private final List<Connection> keepers = new ArrayList<>();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ReadReplicaDataSource readReplicaDataSource;
+
+    @BeforeEach
+    public void init() throws SQLException {
+        createDatabase("primary");
+        createDatabase("replica1");
+        createDatabase("replica2");
+        JdbcDataSource primary = new JdbcDataSource();
+        primary.setURL(url("primary"));
+        readReplicaDataSource = new ReadReplicaDataSource(primary, List.of(replicaPool("replica1"), replicaPool("replica2")),
+                CONNECTION_TIMEOUT_MS, meterRegistry);
+    }
+
+    @AfterEach
+    public void tearDown() throws SQLException {
+        readReplicaDataSource.close();
+        for (Connection keeper : keepers) {
+            keeper.close();
+        }
+    }
+
+    /**
+     * Testing a scenario when both replicas are healthy, the reads alternate between them and never reach the primary
+     */
+    @Test
+    void testReadsAlternateBetweenReplicas() throws SQLException {
+        List<String> databases = new ArrayList<>();
+        for (int read = 0; read < 4; read++) {
+            databases.add(read());
+        }
+
+        assertEquals(List.of("replica1", "replica2", "replica1", "replica2"), databases);
+        assertEquals(0, meterRegistry.get("datasource.read.connections").tag("pool", "primary").counter().count());
+    }
+
+    /**
+     * Testing a scenario when a replica goes down, it is ejected on the first failed connection and receives reads again
+     * once a health check passes
+     */
+    @Test
+    void testUnreachableReplicaIsEjectedAndRecovers() throws Exception {
+        shutdownDatabase("replica1");
+        // the pooled connections to the stopped database are only validated once they have been idle for half a second
+        Thread.sleep(600);
+
+        assertEquals("replica2", read());
+        assertEquals("replica2", read());
+        assertEquals(0, healthy("replica-1"));
+        assertEquals(1, healthy("replica-2"));
+
+        createDatabase("replica1");
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (healthy("replica-1") == 0 && System.currentTimeMillis() < deadline) {
+            readReplicaDataSource.checkHealth();
+        }
+
+        assertEquals(1, healthy("replica-1"));
+        List<String> databases = List.of(read(), read());
+        assertEquals(2, databases.stream().distinct().count());
+    }
+
+    /**
+     * Testing a scenario when every connection of both replicas is in use, the read falls back to the primary
+     * without ejecting the replicas
+     */
+    @Test
+    void testExhaustedReplicasAreNotEjected() throws SQLException {
+        try (Connection first = readReplicaDataSource.getConnection(); Connection second = readReplicaDataSource.getConnection()) {
+            assertEquals("primary", read());
+        }
+
+        assertEquals(1, healthy("replica-1"));
+        assertEquals(1, healthy("replica-2"));
+        assertEquals("replica2", read());
+    }
+
+    private String url(String database) {
+        return "jdbc:h2:mem:" + prefix + "-" + database;
+    }
+
+    private void createDatabase(String database) throws SQLException {
+        Connection keeper = DriverManager.getConnection(url(database));
+        try (Statement statement = keeper.createStatement()) {
+            statement.execute("CREATE TABLE database_name (name VARCHAR(20))");
+            statement.execute("INSERT INTO database_name VALUES ('" + database + "')");
+        }
+        keepers.add(keeper);
+    }
+
+    private void shutdownDatabase(String database) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url(database)); Statement statement = connection.createStatement()) {
+            statement.execute("SHUTDOWN");
+        }
+    }
+
+    private HikariDataSource replicaPool(String database) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica-" + database.substring(database.length() - 1));
+        // the replica is not created again on reconnecting once it is shut down, like a replica which went away
+        dataSource.setJdbcUrl(url(database) + ";IFEXISTS=TRUE");
+        dataSource.setMaximumPoolSize(1);
+        dataSource.setConnectionTimeout(CONNECTION_TIMEOUT_MS);
+        dataSource.setInitializationFailTimeout(-1);
+        return dataSource;
+    }
+
+    private String read() throws SQLException {
+        try (Connection connection = readReplicaDataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT name FROM database_name")) {
+            resultSet.next();
+            return resultSet.getString(1);
+        }
+    }
+
+    private double healthy(String pool) {
+        return meterRegistry.get("datasource.replica.healthy").tag("pool", pool).gauge().value();
+    }
+}
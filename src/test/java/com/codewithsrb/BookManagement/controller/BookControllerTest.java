@@ -1,10 +1,21 @@
 package com.codewithsrb.BookManagement.controller;
 
+import com.codewithsrb.BookManagement.exception.ConflictException;
+import com.codewithsrb.BookManagement.exception.ServiceUnavailableException;
 import com.codewithsrb.BookManagement.model.Book;
+import com.codewithsrb.BookManagement.model.BookBatchItem;
+import com.codewithsrb.BookManagement.model.BookDeleteResult;
+import com.codewithsrb.BookManagement.model.BookPage;
+import com.codewithsrb.BookManagement.model.BookPatch;
+import com.codewithsrb.BookManagement.model.HttpResponse;
 import com.codewithsrb.BookManagement.model.UserDetailsImpl;
 import com.codewithsrb.BookManagement.model.UserInfo;
 import com.codewithsrb.BookManagement.model.UserLoginForm;
 import com.codewithsrb.BookManagement.provider.TokenProvider;
+import com.codewithsrb.BookManagement.security.RequestRateLimiter;
+import com.codewithsrb.BookManagement.service.BookETagService;
+import com.codewithsrb.BookManagement.service.BookReadModelService;
+import com.codewithsrb.BookManagement.service.BookSearchService;
 import com.codewithsrb.BookManagement.service.BookService;
 import com.codewithsrb.BookManagement.service.UserDetailsServiceImpl;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -18,6 +29,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -27,15 +39,20 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import java.io.ByteArrayInputStream;
 import java.util.List;
+import java.util.Set;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
+import static org.springframework.http.HttpStatus.OK;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 
 /**
  * Test Class which is using mock to test the controller Endpoints.
  */
 @WebMvcTest(controllers = Controller.class)
+@Import(BookJsonResponseCache.class)
 @AutoConfigureMockMvc(addFilters = false)
 @ExtendWith(MockitoExtension.class)
 class BookControllerTest {
@@ -46,6 +63,15 @@ class BookControllerTest {
     @MockBean
     private BookService bookService;
 
+    @MockBean
+    private BookSearchService bookSearchService;
+
+    @MockBean
+    private BookReadModelService bookReadModelService;
+
+    @MockBean
+    private BookETagService bookETagService;
+
     @MockBean
     private UserDetailsServiceImpl userDetailsService;
 
@@ -55,6 +81,9 @@ class BookControllerTest {
     @MockBean
     private TokenProvider tokenProvider;
 
+    @MockBean
+    private RequestRateLimiter requestRateLimiter;
+
     @Autowired
     ObjectMapper objectMapper;
 
@@ -103,12 +132,28 @@ class BookControllerTest {
                 .andDo(MockMvcResultHandlers.print());
     }
 
+    /**
+     * Testing a scenario when the password hashing pool is saturated, the login is turned away at once
+     */
+    @Test
+    void testUserLoginRejectedWhenHashingIsBusy() throws Exception {
+        when(authenticationManager.authenticate(ArgumentMatchers.any()))
+                .thenThrow(new ServiceUnavailableException("Too many logins in progress. Please try again shortly."));
+        ResultActions result = this.mockMvc.perform(post("/books/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(userLoginForm)));
+
+        result.andExpect(MockMvcResultMatchers.status().isServiceUnavailable())
+                .andExpect(MockMvcResultMatchers.header().string("Retry-After", "1"))
+                .andDo(MockMvcResultHandlers.print());
+    }
+
     /**
      * Get all books test
      */
     @Test
     void testRetrieveAllBooks() throws Exception {
-        when(bookService.retrieveAllBooks()).thenReturn(List.of(book));
+        when(bookService.retrieveAllBooks(0, 50)).thenReturn(new BookPage(List.of(book), null));
         ResultActions result = this.mockMvc.perform(get("/books")
                 .contentType(MediaType.APPLICATION_JSON));
 
@@ -116,7 +161,94 @@ class BookControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("$.message", CoreMatchers.is("Successfully retrieved all books")))
                 .andDo(MockMvcResultHandlers.print());
 
-        verify(bookService, times(1)).retrieveAllBooks();
+        verify(bookService, times(1)).retrieveAllBooks(0, 50);
+    }
+
+    /**
+     * Get all books with the current catalog ETag test, answered with 304 without reading any book
+     */
+    @Test
+    void testRetrieveAllBooksNotModified() throws Exception {
+        when(bookETagService.catalogETag()).thenReturn("\"catalog-1-7\"");
+        ResultActions result = this.mockMvc.perform(get("/books")
+                .header("If-None-Match", "\"catalog-1-7\"")
+                .contentType(MediaType.APPLICATION_JSON));
+
+        result.andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andExpect(MockMvcResultMatchers.header().string("ETag", "\"catalog-1-7\""))
+                .andDo(MockMvcResultHandlers.print());
+
+        verify(bookService, never()).retrieveAllBooks(anyInt(), anyInt());
+    }
+
+    /**
+     * Get a keyset page of books test, the next cursor is returned when more books exist
+     */
+    @Test
+    void testRetrieveBooksPage() throws Exception {
+        when(bookService.retrieveAllBooks(10, 1)).thenReturn(new BookPage(List.of(createdBook), 11));
+        ResultActions result = this.mockMvc.perform(get("/books")
+                .param("after", "10")
+                .param("limit", "1")
+                .contentType(MediaType.APPLICATION_JSON));
+
+        result.andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.nextCursor", CoreMatchers.is(11)))
+                .andDo(MockMvcResultHandlers.print());
+
+        verify(bookService, times(1)).retrieveAllBooks(10, 1);
+    }
+
+    /**
+     * Get a keyset page of books as application/avro test, the books are read back with the BookKey and BookValue schemas
+     */
+    @Test
+    void testRetrieveBooksPageAsAvro() throws Exception {
+        when(bookService.retrieveAllBooks(10, 1)).thenReturn(new BookPage(List.of(createdBook), 11));
+        ResultActions result = this.mockMvc.perform(get("/books")
+                .param("after", "10")
+                .param("limit", "1")
+                .accept(BookAvroHttpMessageConverter.APPLICATION_AVRO));
+
+        byte[] body = result.andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType(BookAvroHttpMessageConverter.APPLICATION_AVRO))
+                .andExpect(MockMvcResultMatchers.header().string(BookAvroHttpMessageConverter.NEXT_CURSOR_HEADER, "11"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertEquals(List.of(createdBook), BookAvroHttpMessageConverter.readBooks(new ByteArrayInputStream(body)));
+    }
+
+    /**
+     * Search books by title and author test
+     */
+    @Test
+    void testSearchBooks() throws Exception {
+        when(bookSearchService.search("dummy", 20)).thenReturn(List.of(createdBook));
+        ResultActions result = this.mockMvc.perform(get("/books/search")
+                .param("q", "dummy")
+                .contentType(MediaType.APPLICATION_JSON));
+
+        result.andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.message", CoreMatchers.is("Successfully found 1 books for: dummy")))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.data[0].id", CoreMatchers.is(1)))
+                .andDo(MockMvcResultHandlers.print());
+
+        verify(bookSearchService, times(1)).search("dummy", 20);
+    }
+
+    /**
+     * Export all books as newline delimited JSON test
+     */
+    @Test
+    void testExportAllBooks() throws Exception {
+        doNothing().when(bookService).exportAllBooks(ArgumentMatchers.any());
+        ResultActions result = this.mockMvc.perform(get("/books/export"));
+
+        result.andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType("application/x-ndjson"))
+                .andDo(MockMvcResultHandlers.print());
+
+        verify(bookService, times(1)).exportAllBooks(ArgumentMatchers.any());
     }
 
     /**
@@ -135,6 +267,46 @@ class BookControllerTest {
         verify(bookService, times(1)).retrieveBookById(1);
     }
 
+    /**
+     * Get Book by ID test, the response spliced from the kept JSON of the book is the one jackson renders for the same response
+     */
+    @Test
+    void testRetrieveBookByIdSplicedFromKeptJson() throws Exception {
+        when(bookService.retrieveBookById(1)).thenReturn(createdBook);
+        this.mockMvc.perform(get("/books/1"));
+        String body = this.mockMvc.perform(get("/books/1").accept(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getContentAsString();
+
+        HttpResponse rendered = HttpResponse.builder()
+                .timeStamp(objectMapper.readTree(body).get("timeStamp").asText())
+                .statusCode(OK.value())
+                .httpStatus(OK)
+                .message("Successfully retrieved book with id: 1")
+                .data(List.of(createdBook))
+                .build();
+        assertEquals(objectMapper.writeValueAsString(rendered), body);
+    }
+
+    /**
+     * Get Book by ID from the read model test, the database is not queried once the read model is serving
+     */
+    @Test
+    void testRetrieveBookByIdFromReadModel() throws Exception {
+        when(bookReadModelService.isServing()).thenReturn(true);
+        when(bookReadModelService.retrieveBookById(1)).thenReturn(createdBook);
+        ResultActions result = this.mockMvc.perform(MockMvcRequestBuilders.get("/books/1")
+                .contentType(MediaType.APPLICATION_JSON));
+
+        result.andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.data[0].id", CoreMatchers.is(1)))
+                .andDo(MockMvcResultHandlers.print());
+
+        verify(bookReadModelService, times(1)).retrieveBookById(1);
+        verify(bookService, never()).retrieveBookById(1);
+    }
+
     /**
      * Create a new book test
      */
@@ -152,6 +324,46 @@ class BookControllerTest {
         verify(bookService, times(1)).createNewBook(book);
     }
 
+    /**
+     * Create books in a batch test, each book is reported by its index in the request
+     */
+    @Test
+    void testCreateNewBooks() throws Exception {
+        when(bookService.createNewBooks(List.of(book, book))).thenReturn(List.of(new BookBatchItem(0, 1, "CREATED", null),
+                new BookBatchItem(1, null, "REJECTED", "Book title cannot be null or empty")));
+        ResultActions result = this.mockMvc.perform(post("/books/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of(book, book))));
+
+        result.andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.message", CoreMatchers.is("Successfully created 1 of 2 books")))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.data[1].status", CoreMatchers.is("REJECTED")))
+                .andDo(MockMvcResultHandlers.print());
+
+        verify(bookService, times(1)).createNewBooks(List.of(book, book));
+    }
+
+    /**
+     * Create books in a batch test, the batch results are not books and are not written as an empty application/avro body
+     */
+    @Test
+    void testCreateNewBooksNotWrittenAsAvro() throws Exception {
+        when(bookService.createNewBooks(List.of(book))).thenReturn(List.of(new BookBatchItem(0, 1, "CREATED", null)));
+
+        this.mockMvc.perform(post("/books/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(book)))
+                        .accept(BookAvroHttpMessageConverter.APPLICATION_AVRO))
+                .andExpect(MockMvcResultMatchers.status().isNotAcceptable());
+        this.mockMvc.perform(post("/books/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(book)))
+                        .header("Accept", "application/avro, application/json;q=0.5"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.data[0].status", CoreMatchers.is("CREATED")));
+    }
+
     /**
      * Update existing book test
      */
@@ -169,6 +381,40 @@ class BookControllerTest {
         verify(bookService, times(1)).updateExistingBook(1, createdBook);
     }
 
+    /**
+     * Patch only the price of an existing book test
+     */
+    @Test
+    void testPatchExistingBook() throws Exception {
+        BookPatch bookPatch = BookPatch.builder().price(35.0).version(0L).build();
+        when(bookService.patchExistingBook(1, bookPatch)).thenReturn(createdBook);
+        ResultActions result = this.mockMvc.perform(patch("/books/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(bookPatch)));
+
+        result.andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.message", CoreMatchers.is("Successfully patched book with id: 1")))
+                .andDo(MockMvcResultHandlers.print());
+
+        verify(bookService, times(1)).patchExistingBook(1, bookPatch);
+    }
+
+    /**
+     * Testing a scenario when the book was changed since the version the caller patched
+     */
+    @Test
+    void testConflictWhilePatchingBook() throws Exception {
+        BookPatch bookPatch = BookPatch.builder().price(35.0).version(0L).build();
+        when(bookService.patchExistingBook(1, bookPatch)).thenThrow(new ConflictException("Book 1 has been changed since version 0, reload it and retry"));
+        ResultActions result = this.mockMvc.perform(patch("/books/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(bookPatch)));
+
+        result.andExpect(MockMvcResultMatchers.status().isConflict())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.reason", CoreMatchers.is("Book 1 has been changed since version 0, reload it and retry")))
+                .andDo(MockMvcResultHandlers.print());
+    }
+
     /**
      * Delete existing book test
      */
@@ -186,6 +432,25 @@ class BookControllerTest {
         verify(bookService, times(1)).deleteExistingBook(1);
     }
 
+    /**
+     * Delete books in bulk test, the ids without a book are reported back
+     */
+    @Test
+    void testDeleteExistingBooks() throws Exception {
+        when(bookService.deleteExistingBooks(Set.of(1, 2))).thenReturn(new BookDeleteResult(List.of(1), List.of(2)));
+
+        ResultActions result = this.mockMvc.perform(delete("/books")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Set.of(1, 2))));
+
+        result.andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.message", CoreMatchers.is("Successfully deleted 1 of 2 books")))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.data[0].notFound[0]", CoreMatchers.is(2)))
+                .andDo(MockMvcResultHandlers.print());
+
+        verify(bookService, times(1)).deleteExistingBooks(Set.of(1, 2));
+    }
+
     /**
      * Testing a scenario when an exception is thrown during accessing the resource
      */
@@ -0,0 +1,116 @@
+package com.codewithsrb.BookManagement.provider;
+
+import com.auth0.jwt.JWT;
+import com.codewithsrb.BookManagement.model.UserDetailsImpl;
+import com.codewithsrb.BookManagement.model.UserInfo;
+import com.codewithsrb.BookManagement.model.VerifiedToken;
+import com.codewithsrb.BookManagement.model.VerifiedToken.Rejection;
+import com.github.benmanes.caffeine.cache.Cache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.Date;
+
+import static com.auth0.jwt.algorithms.Algorithm.HMAC512;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test Class for the verification of access tokens and the caches of verified and rejected tokens.
+ */
+class TokenProviderTest {
+
+    private static final String SECRET = "testsecrettestsecrettestsecrettestsecret";
+    private static final String ISSUER = "CODE_WITH_SRB_LLC";
+
+    private TokenProvider tokenProvider;
+    private String token;
+
+    @BeforeEach
+    public void init() {
+        tokenProvider = new TokenProvider(SECRET, true, null);
+        token = tokenProvider.createAccessToken(new UserDetailsImpl(UserInfo.builder()
+                .email("dummy@email.com")
+                .password("testPass")
+                .role("ROLE_USER")
+                .build()));
+    }
+
+    /**
+     * Testing a scenario when the same token is sent again, the verified token is served from the cache
+     */
+    @Test
+    void testVerifiedTokenServedFromCache() {
+        VerifiedToken first = tokenProvider.verifyToken(token);
+        VerifiedToken second = tokenProvider.verifyToken(token);
+
+        assertTrue(tokenProvider.isTokenValid(first));
+        assertEquals("dummy@email.com", first.getSubject());
+        assertEquals("ROLE_USER", first.getAuthorities().get(0).getAuthority());
+        assertSame(first, second);
+        assertEquals(1, cache("verifiedTokens").estimatedSize());
+    }
+
+    /**
+     * Testing a scenario when a cached token expires, it is no longer accepted from the cache and is rejected as expired
+     */
+    @Test
+    void testCachedTokenRejectedOnceExpired() throws Exception {
+        Instant expiresAt = Instant.now().plusSeconds(2);
+        String shortLivedToken = JWT.create()
+                .withIssuer(ISSUER)
+                .withSubject("dummy@email.com")
+                .withArrayClaim("authorities", new String[]{"ROLE_USER"})
+                .withExpiresAt(Date.from(expiresAt))
+                .sign(HMAC512(SECRET));
+        assertTrue(tokenProvider.isTokenValid(tokenProvider.verifyToken(shortLivedToken)));
+
+        while (!Instant.now().isAfter(expiresAt.plusMillis(1000))) {
+            Thread.sleep(100);
+        }
+        VerifiedToken expired = tokenProvider.verifyToken(shortLivedToken);
+
+        assertEquals(Rejection.EXPIRED, expired.getRejection());
+        assertFalse(tokenProvider.isTokenValid(expired));
+    }
+
+    /**
+     * Testing a scenario when a token with a forged signature is repeated, it is rejected from the rejected token cache
+     * and never enters the verified token cache
+     */
+    @Test
+    void testForgedTokenRejectionCached() {
+        String forgedToken = token.substring(0, token.lastIndexOf('.') + 1) + "Zm9yZ2Vk";
+
+        VerifiedToken first = tokenProvider.verifyToken(forgedToken);
+        VerifiedToken second = tokenProvider.verifyToken(forgedToken);
+
+        assertEquals(Rejection.INVALID, first.getRejection());
+        assertEquals(Rejection.INVALID, second.getRejection());
+        assertNull(second.getSubject());
+        assertEquals(1, cache("rejectedTokens").estimatedSize());
+        assertEquals(0, cache("verifiedTokens").estimatedSize());
+    }
+
+    /**
+     * Testing a scenario when the token is not shaped like a JWT, it is rejected without being cached
+     */
+    @Test
+    void testMalformedTokenRejectedWithoutCaching() {
+        VerifiedToken verifiedToken = tokenProvider.verifyToken("garbage");
+
+        assertEquals(Rejection.INVALID, verifiedToken.getRejection());
+        assertEquals(0, cache("rejectedTokens").estimatedSize());
+    }
+
+    private Cache<?, ?> cache(String name) {
+        Cache<?, ?> cache = (Cache<?, ?>) ReflectionTestUtils.getField(tokenProvider, name);
+        cache.cleanUp();
+        return cache;
+    }
+}
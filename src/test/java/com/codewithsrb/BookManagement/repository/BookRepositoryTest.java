@@ -0,0 +1,65 @@
+package com.codewithsrb.BookManagement.repository;
+
+import com.codewithsrb.BookManagement.model.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Test Class for the conditional patch UPDATE of the book repository, run against the embedded H2 database.
+ */
+@DataJpaTest
+class BookRepositoryTest {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    private Book book;
+
+    @BeforeEach
+    public void init() {
+        book = bookRepository.saveAndFlush(Book.builder().title("dummy title").author("dummy author").bookLanguage("English").price(40.50).build());
+    }
+
+    /**
+     * Testing a scenario when only the price is patched, the fields not sent keep their values and the version is incremented
+     */
+    @Test
+    void testPatchBookKeepsFieldsNotSent() {
+        int updatedRows = bookRepository.patchBook(book.getId(), book.getVersion(), null, null, null, 12.0);
+
+        Book patchedBook = bookRepository.findById(book.getId()).orElseThrow();
+        assertEquals(1, updatedRows);
+        assertEquals("dummy title", patchedBook.getTitle());
+        assertEquals("dummy author", patchedBook.getAuthor());
+        assertEquals("English", patchedBook.getBookLanguage());
+        assertEquals(12.0, patchedBook.getPrice());
+        assertEquals(book.getVersion() + 1, patchedBook.getVersion());
+    }
+
+    /**
+     * Testing a scenario when a patch carries a version which is no longer current, nothing is updated
+     */
+    @Test
+    void testPatchBookWithStaleVersion() {
+        bookRepository.patchBook(book.getId(), book.getVersion(), "first title", null, null, null);
+
+        int updatedRows = bookRepository.patchBook(book.getId(), book.getVersion(), "second title", null, null, null);
+
+        Book patchedBook = bookRepository.findById(book.getId()).orElseThrow();
+        assertEquals(0, updatedRows);
+        assertEquals("first title", patchedBook.getTitle());
+        assertEquals(book.getVersion() + 1, patchedBook.getVersion());
+    }
+
+    /**
+     * Testing a scenario when the patched book does not exist, nothing is updated
+     */
+    @Test
+    void testPatchMissingBook() {
+        assertEquals(0, bookRepository.patchBook(book.getId() + 1, 0, "dummy title", null, null, null));
+    }
+}
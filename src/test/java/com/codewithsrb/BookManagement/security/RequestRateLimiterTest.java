@@ -0,0 +1,149 @@
+package com.codewithsrb.BookManagement.security;
+
+import com.codewithsrb.BookManagement.configuration.RateLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.codewithsrb.BookManagement.configuration.RateLimitProperties.ANONYMOUS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test Class for the token buckets of the rate limiter.
+ */
+class RequestRateLimiterTest {
+
+    private static final String SUBJECT = "dummy@email.com";
+    private static final String ADDRESS = "127.0.0.1";
+    private static final List<GrantedAuthority> USER = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    /**
+     * Testing a scenario when a client sends a burst, the requests up to the capacity go on and the next one is told to wait
+     * for one interval
+     */
+    @Test
+    void testBurstUpToCapacity() {
+        RequestRateLimiter rateLimiter = rateLimiter(Map.of("ROLE_USER", limit(3, 0.5)), List.of());
+
+        for (int request = 0; request < 3; request++) {
+            assertEquals(0, rateLimiter.acquire(get("/books"), SUBJECT, USER));
+        }
+        long waitNanos = rateLimiter.acquire(get("/books"), SUBJECT, USER);
+
+        assertTrue(waitNanos > TimeUnit.MILLISECONDS.toNanos(1_900) && waitNanos <= TimeUnit.SECONDS.toNanos(2));
+        assertEquals(1, meterRegistry.get("rate.limit.rejected").tag("limit", "ROLE_USER").counter().count());
+    }
+
+    /**
+     * Testing a scenario when a client used up its bucket, it gets a token back once the interval has passed
+     */
+    @Test
+    void testRefillAfterInterval() throws InterruptedException {
+        RequestRateLimiter rateLimiter = rateLimiter(Map.of("ROLE_USER", limit(1, 20)), List.of());
+
+        assertEquals(0, rateLimiter.acquire(get("/books"), SUBJECT, USER));
+        assertTrue(rateLimiter.acquire(get("/books"), SUBJECT, USER) > 0);
+        Thread.sleep(60);
+
+        assertEquals(0, rateLimiter.acquire(get("/books"), SUBJECT, USER));
+    }
+
+    /**
+     * Testing a scenario when a user and an anonymous client address are limited, each has a bucket of its own
+     */
+    @Test
+    void testSeparateBucketsPerClient() {
+        RequestRateLimiter rateLimiter = rateLimiter(Map.of("ROLE_USER", limit(1, 0.1), ANONYMOUS, limit(1, 0.1)), List.of());
+
+        assertEquals(0, rateLimiter.acquire(get("/books"), SUBJECT, USER));
+        assertTrue(rateLimiter.acquire(get("/books"), SUBJECT, USER) > 0);
+
+        assertEquals(0, rateLimiter.acquire(get("/books"), ADDRESS, List.of()));
+        assertEquals(0, rateLimiter.acquire(get("/books"), "other@email.com", USER));
+        assertTrue(rateLimiter.acquire(get("/books"), ADDRESS, List.of()) > 0);
+    }
+
+    /**
+     * Testing a scenario when a route has a limit of its own, its bucket is separate from the bucket of the same client
+     * on the other routes
+     */
+    @Test
+    void testSeparateBucketsPerRoute() {
+        RateLimitProperties.Route login = new RateLimitProperties.Route();
+        login.setPath("/books/login");
+        login.setMethod("POST");
+        login.setLimits(Map.of(ANONYMOUS, limit(1, 0.1)));
+        RequestRateLimiter rateLimiter = rateLimiter(Map.of(ANONYMOUS, limit(1, 0.1)), List.of(login));
+
+        assertEquals(0, rateLimiter.acquire(new MockHttpServletRequest("POST", "/books/login"), ADDRESS, List.of()));
+        assertTrue(rateLimiter.acquire(new MockHttpServletRequest("POST", "/books/login"), ADDRESS, List.of()) > 0);
+
+        assertEquals(0, rateLimiter.acquire(get("/books/register"), ADDRESS, List.of()));
+        assertTrue(rateLimiter.acquire(get("/books/register"), ADDRESS, List.of()) > 0);
+    }
+
+    /**
+     * Testing a scenario when a user has several limited roles, the most generous limit applies
+     */
+    @Test
+    void testMostGenerousRoleApplies() {
+        RequestRateLimiter rateLimiter = rateLimiter(Map.of("ROLE_USER", limit(1, 0.1), "ROLE_ADMIN", limit(2, 1)), List.of());
+        List<GrantedAuthority> admin = List.of(new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_ADMIN"));
+
+        assertEquals(0, rateLimiter.acquire(get("/books"), SUBJECT, admin));
+        assertEquals(0, rateLimiter.acquire(get("/books"), SUBJECT, admin));
+        assertTrue(rateLimiter.acquire(get("/books"), SUBJECT, admin) > 0);
+        assertEquals(1, meterRegistry.get("rate.limit.rejected").tag("limit", "ROLE_ADMIN").counter().count());
+    }
+
+    /**
+     * Testing a scenario when the rate limiter is disabled, no request is ever turned away
+     */
+    @Test
+    void testDisabled() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setEnabled(false);
+        properties.setLimits(Map.of("ROLE_USER", limit(1, 0.1)));
+        RequestRateLimiter rateLimiter = new RequestRateLimiter(properties, meterRegistry);
+
+        for (int request = 0; request < 10; request++) {
+            assertEquals(0, rateLimiter.acquire(get("/books"), SUBJECT, USER));
+        }
+    }
+
+    /**
+     * Testing a scenario when a limit has no positive rate, the rate limiter refuses to start
+     */
+    @Test
+    void testInvalidLimitRejected() {
+        assertThrows(IllegalArgumentException.class, () -> rateLimiter(Map.of("ROLE_USER", limit(0, 1)), List.of()));
+    }
+
+    private RequestRateLimiter rateLimiter(Map<String, RateLimitProperties.Limit> limits, List<RateLimitProperties.Route> routes) {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setLimits(limits);
+        properties.setRoutes(routes);
+        return new RequestRateLimiter(properties, meterRegistry);
+    }
+
+    private static RateLimitProperties.Limit limit(int capacity, double perSecond) {
+        RateLimitProperties.Limit limit = new RateLimitProperties.Limit();
+        limit.setCapacity(capacity);
+        limit.setPerSecond(perSecond);
+        return limit;
+    }
+
+    private static MockHttpServletRequest get(String path) {
+        return new MockHttpServletRequest("GET", path);
+    }
+}
@@ -0,0 +1,46 @@
+package com.codewithsrb.BookManagement.service;
+
+import com.codewithsrb.BookManagement.model.Book;
+import com.codewithsrb.BookManagement.model.BookChangedEvent;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Test Class for the book and catalog ETags.
+ */
+class BookETagServiceTest {
+
+    private final BookETagService bookETagService = new BookETagService();
+
+    /**
+     * Testing a scenario when a book changes on this node, its ETag follows the committed version and the catalog ETag changes
+     */
+    @Test
+    void testLocalChangeUpdatesETags() {
+        bookETagService.bookETag(Book.builder().id(7).version(0L).build());
+        String catalogETag = bookETagService.catalogETag();
+
+        bookETagService.onBookChanged(new BookChangedEvent(7, Book.builder().id(7).version(1L).build()));
+
+        assertEquals("W/\"book-7-1\"", bookETagService.bookETag(7));
+        assertNotEquals(catalogETag, bookETagService.catalogETag());
+    }
+
+    /**
+     * Testing a scenario when a change made on another node is consumed, the remembered version is forgotten so the old ETag
+     * no longer answers 304, and the catalog ETag changes
+     */
+    @Test
+    void testRemoteChangeInvalidatesETags() {
+        bookETagService.bookETag(Book.builder().id(7).version(0L).build());
+        String catalogETag = bookETagService.catalogETag();
+
+        bookETagService.invalidate(7);
+
+        assertNull(bookETagService.bookETag(7));
+        assertNotEquals(catalogETag, bookETagService.catalogETag());
+    }
+}
@@ -0,0 +1,133 @@
+package com.codewithsrb.BookManagement.service;
+
+import com.codewithsrb.BookManagement.configuration.ReadModelProperties;
+import com.codewithsrb.BookManagement.model.Book;
+import com.codewithsrb.BookManagement.model.BookPage;
+import com.codewithsrb.BookManagement.schema.BookKey;
+import com.codewithsrb.BookManagement.schema.BookValue;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test Class for the read model materialized from the book topic.
+ */
+class BookReadModelServiceTest {
+
+    private static final TopicPartition FIRST_PARTITION = new TopicPartition("books", 0);
+    private static final TopicPartition SECOND_PARTITION = new TopicPartition("books", 1);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private BookReadModelService bookReadModelService;
+
+    @BeforeEach
+    public void init() {
+        ReadModelProperties readModelProperties = new ReadModelProperties();
+        readModelProperties.setEnabled(true);
+        bookReadModelService = new BookReadModelService(readModelProperties, meterRegistry);
+    }
+
+    /**
+     * Testing a scenario when a book value is applied and then applied again changed, the read model holds the latest one
+     */
+    @Test
+    void testApplyUpsertsBook() {
+        bookReadModelService.apply(key(7), value("dummy title", 40.50, 0L));
+        bookReadModelService.apply(key(7), value("new title", 12.0, 1L));
+
+        Book book = bookReadModelService.retrieveBookById(7);
+        assertEquals("new title", book.getTitle());
+        assertEquals("dummy author", book.getAuthor());
+        assertEquals(12.0, book.getPrice());
+        assertEquals(1L, book.getVersion());
+        assertEquals(1, meterRegistry.get("book.read.model.books").gauge().value());
+    }
+
+    /**
+     * Testing a scenario when a tombstone is applied, the book is removed from the read model
+     */
+    @Test
+    void testTombstoneRemovesBook() {
+        bookReadModelService.apply(key(7), value("dummy title", 40.50, 0L));
+
+        bookReadModelService.apply(key(7), null);
+
+        assertNull(bookReadModelService.retrieveBookById(7));
+        assertEquals(0, meterRegistry.get("book.read.model.books").gauge().value());
+    }
+
+    /**
+     * Testing a scenario when books are applied out of id order, the pages are still in id order and the cursor continues after
+     * the last book of the page
+     */
+    @Test
+    void testPagesInIdOrder() {
+        for (int id : new int[] {5, 1, 9, 3, 7}) {
+            bookReadModelService.apply(key(id), value("title " + id, 10, 0L));
+        }
+
+        BookPage first = bookReadModelService.retrieveAllBooks(0, 2);
+        BookPage second = bookReadModelService.retrieveAllBooks(first.getNextCursor(), 2);
+        BookPage last = bookReadModelService.retrieveAllBooks(second.getNextCursor(), 2);
+
+        assertEquals(List.of(1, 3), first.getBooks().stream().map(Book::getId).toList());
+        assertEquals(List.of(5, 7), second.getBooks().stream().map(Book::getId).toList());
+        assertEquals(List.of(9), last.getBooks().stream().map(Book::getId).toList());
+        assertNull(last.getNextCursor());
+    }
+
+    /**
+     * Testing a scenario when the lag of the partitions is updated, the read model starts serving only once every assigned
+     * partition has been read up to its end, and keeps serving when it falls behind again
+     */
+    @Test
+    void testServesOnceEveryPartitionCaughtUp() {
+        List<TopicPartition> assignment = List.of(FIRST_PARTITION, SECOND_PARTITION);
+
+        bookReadModelService.updateLag(assignment, Map.of(FIRST_PARTITION, OptionalLong.of(0)));
+        assertFalse(bookReadModelService.isServing());
+
+        bookReadModelService.updateLag(assignment, Map.of(FIRST_PARTITION, OptionalLong.of(0), SECOND_PARTITION, OptionalLong.of(20)));
+        assertFalse(bookReadModelService.isServing());
+        assertEquals(20, bookReadModelService.getLag());
+
+        bookReadModelService.updateLag(assignment, Map.of(FIRST_PARTITION, OptionalLong.of(0), SECOND_PARTITION, OptionalLong.of(0)));
+        assertTrue(bookReadModelService.isServing());
+        assertEquals(0, bookReadModelService.getLag());
+
+        bookReadModelService.updateLag(assignment, Map.of(FIRST_PARTITION, OptionalLong.of(3), SECOND_PARTITION, OptionalLong.of(0)));
+        assertTrue(bookReadModelService.isServing());
+        assertEquals(3, meterRegistry.get("book.read.model.lag").gauge().value());
+    }
+
+    /**
+     * Testing a scenario when no partition is assigned or the read model is disabled, it does not serve
+     */
+    @Test
+    void testNotServingWithoutAssignmentOrWhenDisabled() {
+        bookReadModelService.updateLag(List.of(), Map.of());
+        assertFalse(bookReadModelService.isServing());
+
+        BookReadModelService disabled = new BookReadModelService(new ReadModelProperties(), new SimpleMeterRegistry());
+        disabled.updateLag(List.of(FIRST_PARTITION), Map.of(FIRST_PARTITION, OptionalLong.of(0)));
+        assertFalse(disabled.isServing());
+    }
+
+    private static BookKey key(int id) {
+        return BookKey.newBuilder().setBookId(id).build();
+    }
+
+    private static BookValue value(String title, double price, Long version) {
+        return BookValue.newBuilder().setTitle(title).setAuthor("dummy author").setBookLanguage("English").setPrice(price).setVersion(version).build();
+    }
+}
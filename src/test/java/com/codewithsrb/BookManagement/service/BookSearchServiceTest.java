@@ -0,0 +1,165 @@
+package com.codewithsrb.BookManagement.service;
+
+import com.codewithsrb.BookManagement.model.Book;
+import com.codewithsrb.BookManagement.model.BookChangedEvent;
+import com.codewithsrb.BookManagement.repository.BookRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test Class for the ranking and the incremental updates of the in-memory book search index.
+ */
+@ExtendWith(MockitoExtension.class)
+class BookSearchServiceTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private BookSearchService bookSearchService;
+
+    @BeforeEach
+    public void init() {
+        bookSearchService = new BookSearchService(bookRepository, entityManager, transactionManager);
+    }
+
+    /**
+     * Testing a scenario when a term matches titles and authors, a whole word in the title ranks first, then a whole word in the author,
+     * then a prefix of a title word
+     */
+    @Test
+    void testSearchRanking() {
+        index(1, "Dragonfly Summer", "Ann Lee");
+        index(2, "Winter Tales", "Dragon Smith");
+        index(3, "The Dragon Reborn", "Robert Jordan");
+        index(4, "Garden Party", "Katherine Mansfield");
+
+        assertEquals(List.of(3, 2, 1), ids(bookSearchService.search("dragon", 10)));
+        assertEquals(List.of(3), ids(bookSearchService.search("dragon jordan", 10)));
+        assertEquals(List.of(3, 2), ids(bookSearchService.search("dragon", 2)));
+        assertEquals(List.of(), ids(bookSearchService.search("dragon mansfield", 10)));
+    }
+
+    /**
+     * Testing a scenario when the query has different case and accents, it still matches the indexed terms
+     */
+    @Test
+    void testSearchFoldsCaseAndAccents() {
+        index(1, "Les Misérables", "Victor Hugo");
+
+        assertEquals(List.of(1), ids(bookSearchService.search("MISERABLES hugo", 10)));
+        assertEquals(List.of(1), ids(bookSearchService.search("misér", 10)));
+    }
+
+    /**
+     * Testing a scenario when a book is updated and deleted, searches only find it by its current terms
+     */
+    @Test
+    void testIncrementalUpdates() {
+        index(1, "The Hobbit", "J. R. R. Tolkien");
+        index(2, "The Silmarillion", "J. R. R. Tolkien");
+        assertEquals(List.of(1), ids(bookSearchService.search("hobbit", 10)));
+
+        index(1, "There and Back Again", "J. R. R. Tolkien");
+        assertEquals(List.of(), ids(bookSearchService.search("hobbit", 10)));
+        assertEquals(List.of(1), ids(bookSearchService.search("back again", 10)));
+        assertEquals(List.of(1, 2), ids(bookSearchService.search("tolkien", 10)));
+
+        bookSearchService.onBookChanged(new BookChangedEvent(1, null));
+        assertEquals(List.of(), ids(bookSearchService.search("back", 10)));
+        assertEquals(List.of(2), ids(bookSearchService.search("tolkien", 10)));
+    }
+
+    /**
+     * Testing a scenario when a book is re-indexed while it is searched, a search only returns books matching the query
+     */
+    @Test
+    void testSearchDuringReindexing() throws Exception {
+        index(1, "alpha beta", "author");
+        AtomicBoolean running = new AtomicBoolean(true);
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+            for (int change = 0; running.get(); change++) {
+                index(1, change % 2 == 0 ? "gamma delta" : "alpha beta", "author");
+            }
+        });
+        try {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(500);
+            while (System.nanoTime() < deadline) {
+                bookSearchService.search("alpha", 10)
+                        .forEach(book -> assertTrue(book.getTitle().contains("alpha"), book.getTitle()));
+            }
+        } finally {
+            running.set(false);
+            writer.get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Testing a scenario when the index is built from the database, every streamed book is indexed and then detached
+     */
+    @Test
+    void testBuildIndexDetachesIndexedBooks() {
+        Book hobbit = Book.builder().id(1).title("The Hobbit").author("J. R. R. Tolkien").build();
+        Book silmarillion = Book.builder().id(2).title("The Silmarillion").author("J. R. R. Tolkien").build();
+        when(bookRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(hobbit, silmarillion));
+
+        bookSearchService.buildIndex();
+
+        assertEquals(List.of(1, 2), ids(bookSearchService.search("tolkien", 10)));
+        verify(entityManager).detach(hobbit);
+        verify(entityManager).detach(silmarillion);
+    }
+
+    /**
+     * Testing a scenario when the ranking of a broad prefix is kept, a change to a book matching the prefix shows in the
+     * next search and a change to any other book keeps the ranking
+     */
+    @Test
+    void testBroadPrefixRankingFollowsChanges() {
+        for (int id = 1; id <= 1_000; id++) {
+            index(id, "Dragonfly " + id, "Ann Lee");
+        }
+        assertEquals(List.of(1, 2, 3), ids(bookSearchService.search("dra", 3)));
+        assertEquals(List.of(1, 2, 3, 4, 5), ids(bookSearchService.search("DRA", 5)));
+
+        index(1_001, "Dra", "Ann Lee");
+        assertEquals(List.of(1_001, 1, 2), ids(bookSearchService.search("dra", 3)));
+
+        index(1, "Winter Tales", "Ann Lee");
+        index(1_002, "Garden Party", "Katherine Mansfield");
+        assertEquals(List.of(1_001, 2, 3), ids(bookSearchService.search("dra", 3)));
+
+        bookSearchService.onBookChanged(new BookChangedEvent(1_001, null));
+        assertEquals(List.of(2, 3, 4), ids(bookSearchService.search("dra", 3)));
+        assertEquals(List.of(1_002), ids(bookSearchService.search("garden", 3)));
+    }
+
+    private void index(int id, String title, String author) {
+        bookSearchService.onBookChanged(new BookChangedEvent(id, Book.builder().id(id).title(title).author(author).build()));
+    }
+
+    private static List<Integer> ids(List<Book> books) {
+        return books.stream().map(Book::getId).toList();
+    }
+}
@@ -0,0 +1,180 @@
+package com.codewithsrb.BookManagement.service;
+
+import com.codewithsrb.BookManagement.configuration.CacheConfiguration;
+import com.codewithsrb.BookManagement.model.Book;
+import com.codewithsrb.BookManagement.model.BookPatch;
+import com.codewithsrb.BookManagement.repository.BookRepository;
+import com.codewithsrb.BookManagement.repository.OutboxRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.codewithsrb.BookManagement.configuration.CacheConfiguration.BOOKS_CACHE;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test Class for the books cache of the book service, with mocked repositories behind the real caching and transaction proxies.
+ */
+@SpringJUnitConfig(BookServiceCacheTest.Config.class)
+class BookServiceCacheTest {
+
+    @Configuration
+    @EnableTransactionManagement
+    @Import(CacheConfiguration.class)
+    static class Config {
+
+        @Bean
+        CacheManager cacheManager() {
+            return new CaffeineCacheManager(BOOKS_CACHE);
+        }
+
+        @Bean
+        PlatformTransactionManager transactionManager() {
+            JdbcDataSource dataSource = new JdbcDataSource();
+            dataSource.setURL("jdbc:h2:mem:bookServiceCacheTest");
+            return new DataSourceTransactionManager(dataSource);
+        }
+
+        @Bean
+        BookRepository bookRepository() {
+            return mock(BookRepository.class);
+        }
+
+        @Bean
+        BookService bookService(BookRepository bookRepository) {
+            return new BookService(bookRepository, mock(OutboxRepository.class), new ObjectMapper(), mock(EntityManager.class),
+                    mock(ApplicationEventPublisher.class));
+        }
+    }
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Book book;
+
+    @BeforeEach
+    public void init() {
+        reset(bookRepository);
+        cacheManager.getCache(BOOKS_CACHE).clear();
+        book = Book.builder().id(7).title("dummy title").author("dummy author").bookLanguage("English").price(40.50).version(0L).build();
+        when(bookRepository.findById(7)).thenReturn(Optional.of(book));
+    }
+
+    /**
+     * Testing a scenario when a book is retrieved twice, the second retrieval is served from the cache
+     */
+    @Test
+    void testRetrieveBookByIdIsCached() {
+        Book first = bookService.retrieveBookById(7);
+        Book second = bookService.retrieveBookById(7);
+
+        assertSame(first, second);
+        verify(bookRepository, times(1)).findById(7);
+    }
+
+    /**
+     * Testing a scenario when a book is updated inside a transaction, it stays cached until the transaction committed
+     * and is evicted then
+     */
+    @Test
+    void testUpdateEvictsAfterCommit() {
+        bookService.retrieveBookById(7);
+        when(bookRepository.saveAndFlush(any(Book.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            bookService.updateExistingBook(7, Book.builder().title("new title").author("dummy author").bookLanguage("English").build());
+            assertNotNull(cachedBook(7));
+        });
+
+        assertNull(cachedBook(7));
+    }
+
+    /**
+     * Testing a scenario when a book is patched, it is evicted from the cache
+     */
+    @Test
+    void testPatchEvicts() {
+        bookService.retrieveBookById(7);
+        BookPatch bookPatch = new BookPatch();
+        bookPatch.setPrice(12.0);
+        bookPatch.setVersion(0L);
+        when(bookRepository.patchBook(7, 0L, null, null, null, 12.0)).thenReturn(1);
+
+        bookService.patchExistingBook(7, bookPatch);
+
+        assertNull(cachedBook(7));
+    }
+
+    /**
+     * Testing a scenario when a book is deleted, it is evicted from the cache and the other cached books stay
+     */
+    @Test
+    void testDeleteEvictsOnlyTheBook() {
+        when(bookRepository.findById(8)).thenReturn(Optional.of(Book.builder().id(8).title("other title").build()));
+        bookService.retrieveBookById(7);
+        bookService.retrieveBookById(8);
+        when(bookRepository.deleteByIdIn(List.of(7))).thenReturn(1);
+
+        bookService.deleteExistingBook(7);
+
+        assertNull(cachedBook(7));
+        assertNotNull(cachedBook(8));
+    }
+
+    /**
+     * Testing a scenario when books are deleted in bulk, every cached book is evicted
+     */
+    @Test
+    void testBulkDeleteEvictsAllEntries() {
+        when(bookRepository.findById(8)).thenReturn(Optional.of(Book.builder().id(8).title("other title").build()));
+        bookService.retrieveBookById(7);
+        bookService.retrieveBookById(8);
+        when(bookRepository.findExistingIds(anyCollection())).thenReturn(List.of(7));
+
+        bookService.deleteExistingBooks(Set.of(7));
+
+        assertNull(cachedBook(7));
+        assertNull(cachedBook(8));
+    }
+
+    private Cache.ValueWrapper cachedBook(int id) {
+        return cacheManager.getCache(BOOKS_CACHE).get(id);
+    }
+}
@@ -0,0 +1,255 @@
+package com.codewithsrb.BookManagement.service;
+
+import com.codewithsrb.BookManagement.exception.ConflictException;
+import com.codewithsrb.BookManagement.exception.ResourceNotFoundException;
+import com.codewithsrb.BookManagement.model.Book;
+import com.codewithsrb.BookManagement.model.BookBatchItem;
+import com.codewithsrb.BookManagement.model.BookChangedEvent;
+import com.codewithsrb.BookManagement.model.BookDeleteResult;
+import com.codewithsrb.BookManagement.model.BookPatch;
+import com.codewithsrb.BookManagement.model.OutboxEvent;
+import com.codewithsrb.BookManagement.repository.BookRepository;
+import com.codewithsrb.BookManagement.repository.OutboxRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test Class which is using mocked repositories to test the book service.
+ */
+@ExtendWith(MockitoExtension.class)
+class BookServiceTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private OutboxRepository outboxRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private BookService bookService;
+
+    @BeforeEach
+    public void init() {
+        bookService = new BookService(bookRepository, outboxRepository, new ObjectMapper(), entityManager, eventPublisher);
+    }
+
+    /**
+     * Testing a scenario when the catalog is exported, the output is flushed every 100 books and at the end, not after every book
+     */
+    @Test
+    void testExportFlushesEveryHundredBooks() throws Exception {
+        when(bookRepository.streamAllByOrderByIdAsc()).thenReturn(IntStream.rangeClosed(1, 250)
+                .mapToObj(id -> Book.builder().id(id).title("title " + id).author("author").bookLanguage("English").price(10).build()));
+        FlushCountingOutputStream outputStream = new FlushCountingOutputStream();
+
+        bookService.exportAllBooks(outputStream);
+
+        assertEquals(250, outputStream.toString(StandardCharsets.UTF_8).lines().count());
+        assertEquals(3, outputStream.flushes);
+    }
+
+    /**
+     * Testing a scenario when a batch has books without a title, an author or a language, only those are rejected and the rest created
+     */
+    @Test
+    void testBatchRejectsBooksWithMissingFields() {
+        when(bookRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Book> saved = invocation.getArgument(0);
+            saved.forEach(book -> book.setId(100 + saved.indexOf(book)));
+            return saved;
+        });
+        List<Book> batch = Arrays.asList(
+                Book.builder().title("valid").author("author").bookLanguage("English").build(),
+                Book.builder().title("no author").bookLanguage("English").build(),
+                Book.builder().title("no language").author("author").build(),
+                Book.builder().title(" ").author("author").bookLanguage("English").build(),
+                null);
+
+        List<BookBatchItem> results = bookService.createNewBooks(batch);
+
+        assertEquals(List.of("CREATED", "REJECTED", "REJECTED", "REJECTED", "REJECTED"), results.stream().map(BookBatchItem::getStatus).toList());
+        assertEquals(100, results.get(0).getId());
+        assertEquals("Book author cannot be null", results.get(1).getReason());
+        assertEquals("Book language cannot be null", results.get(2).getReason());
+        assertEquals("Book title cannot be null or empty", results.get(3).getReason());
+        assertEquals("Book title cannot be null or empty", results.get(4).getReason());
+        verify(outboxRepository).saveAll(argThat(events -> ((Collection<?>) events).size() == 1));
+    }
+
+    /**
+     * Testing a scenario when a patch carries a stale version of an existing book, a conflict is raised and no event is written
+     */
+    @Test
+    void testPatchWithStaleVersionConflicts() {
+        BookPatch bookPatch = new BookPatch();
+        bookPatch.setPrice(12.0);
+        bookPatch.setVersion(3L);
+        when(bookRepository.patchBook(7, 3L, null, null, null, 12.0)).thenReturn(0);
+        when(bookRepository.existsById(7)).thenReturn(true);
+
+        ConflictException exception = assertThrows(ConflictException.class, () -> bookService.patchExistingBook(7, bookPatch));
+
+        assertEquals("Book 7 has been changed since version 3, reload it and retry", exception.getMessage());
+        verifyNoInteractions(outboxRepository, eventPublisher);
+    }
+
+    /**
+     * Testing a scenario when a patch targets a book which does not exist, it is reported as not found instead of as a conflict
+     */
+    @Test
+    void testPatchMissingBookNotFound() {
+        BookPatch bookPatch = new BookPatch();
+        bookPatch.setTitle("dummy title");
+        bookPatch.setVersion(0L);
+        when(bookRepository.patchBook(7, 0L, "dummy title", null, null, null)).thenReturn(0);
+        when(bookRepository.existsById(7)).thenReturn(false);
+
+        assertThrows(ResourceNotFoundException.class, () -> bookService.patchExistingBook(7, bookPatch));
+        verifyNoInteractions(outboxRepository, eventPublisher);
+    }
+
+    /**
+     * Testing a scenario when 2500 ids are deleted, they are looked up and deleted in chunks of 1000 and the ids of the books
+     * which do not exist are reported as not found
+     */
+    @Test
+    void testBulkDeleteInChunksReportsMissingIds() {
+        List<Integer> chunkSizes = new ArrayList<>();
+        when(bookRepository.findExistingIds(anyCollection())).thenAnswer(invocation -> {
+            Collection<Integer> chunk = invocation.getArgument(0);
+            chunkSizes.add(chunk.size());
+            return chunk.stream().filter(id -> id <= 2000 && id % 2 == 1).toList();
+        });
+        Set<Integer> ids = IntStream.rangeClosed(1, 2500).boxed().collect(Collectors.toSet());
+
+        BookDeleteResult result = bookService.deleteExistingBooks(ids);
+
+        assertEquals(List.of(1000, 1000, 500), chunkSizes);
+        verify(bookRepository, times(2)).deleteByIdIn(anyCollection());
+        assertEquals(1000, result.getDeleted().size());
+        assertTrue(result.getDeleted().stream().allMatch(id -> id % 2 == 1));
+        assertEquals(1500, result.getNotFound().size());
+        assertEquals(List.of(2, 4, 6), result.getNotFound().subList(0, 3));
+        assertEquals(List.of(2498, 2499, 2500), result.getNotFound().subList(1497, 1500));
+        verify(outboxRepository).saveAll(argThat(events -> ((Collection<?>) events).size() == 1000));
+        verify(eventPublisher, times(1000)).publishEvent(any(BookChangedEvent.class));
+    }
+
+    /**
+     * Testing a scenario when more ids than a batch allows are deleted, nothing is deleted
+     */
+    @Test
+    void testBulkDeleteRejectsOversizedBatch() {
+        Set<Integer> ids = IntStream.rangeClosed(1, 5001).boxed().collect(Collectors.toSet());
+
+        assertThrows(IllegalArgumentException.class, () -> bookService.deleteExistingBooks(ids));
+        verifyNoInteractions(bookRepository, outboxRepository, eventPublisher);
+    }
+
+    /**
+     * Testing a scenario when a book is updated, a value event with the new fields and the incremented version is written
+     * to the outbox in the same transaction
+     */
+    @Test
+    void testUpdateWritesValueEventToOutbox() {
+        Book existingBook = Book.builder().id(7).title("dummy title").author("dummy author").bookLanguage("English").price(40.50).version(0L).build();
+        when(bookRepository.findById(7)).thenReturn(Optional.of(existingBook));
+        when(bookRepository.saveAndFlush(existingBook)).thenAnswer(invocation -> {
+            Book saved = invocation.getArgument(0);
+            saved.setVersion(saved.getVersion() + 1);
+            return saved;
+        });
+        ArgumentCaptor<OutboxEvent> event = ArgumentCaptor.forClass(OutboxEvent.class);
+
+        bookService.updateExistingBook(7, Book.builder().title("new title").author("new author").bookLanguage("French").price(12).build());
+
+        verify(outboxRepository).save(event.capture());
+        assertFalse(event.getValue().isTombstone());
+        assertEquals(7, event.getValue().getBookId());
+        assertEquals("new title", event.getValue().getTitle());
+        assertEquals("new author", event.getValue().getAuthor());
+        assertEquals("French", event.getValue().getBookLanguage());
+        assertEquals(12, event.getValue().getPrice());
+        assertEquals(1L, event.getValue().getVersion());
+    }
+
+    /**
+     * Testing a scenario when a book is deleted, a tombstone carrying only the book id is written to the outbox
+     */
+    @Test
+    void testDeleteWritesTombstoneToOutbox() {
+        when(bookRepository.deleteByIdIn(List.of(7))).thenReturn(1);
+        ArgumentCaptor<OutboxEvent> event = ArgumentCaptor.forClass(OutboxEvent.class);
+
+        bookService.deleteExistingBook(7);
+
+        verify(outboxRepository).save(event.capture());
+        assertTrue(event.getValue().isTombstone());
+        assertEquals(7, event.getValue().getBookId());
+        assertNull(event.getValue().getTitle());
+        assertNull(event.getValue().getVersion());
+    }
+
+    /**
+     * Testing a scenario when books are deleted in bulk, one tombstone per deleted id is written and none for the missing ids
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void testBulkDeleteWritesTombstonePerDeletedBook() {
+        when(bookRepository.findExistingIds(anyCollection())).thenReturn(List.of(3, 5));
+        ArgumentCaptor<List<OutboxEvent>> events = ArgumentCaptor.forClass(List.class);
+
+        bookService.deleteExistingBooks(Set.of(3, 4, 5));
+
+        verify(outboxRepository).saveAll(events.capture());
+        assertEquals(List.of(3, 5), events.getValue().stream().map(OutboxEvent::getBookId).toList());
+        assertTrue(events.getValue().stream().allMatch(OutboxEvent::isTombstone));
+    }
+
+    private static class FlushCountingOutputStream extends ByteArrayOutputStream {
+
+        private int flushes;
+
+        @Override
+        public void flush() {
+            flushes++;
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package com.codewithsrb.BookManagement.service;
+
+import com.codewithsrb.BookManagement.configuration.ConsumerProperties;
+import com.codewithsrb.BookManagement.configuration.RetryProperties;
+import com.codewithsrb.BookManagement.configuration.RetryTopicsConfiguration;
+import com.codewithsrb.BookManagement.configuration.Topics;
+import com.codewithsrb.BookManagement.schema.BookKey;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.avro.specific.SpecificRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.kafka.config.KafkaListenerEndpoint;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistrar;
+import org.springframework.kafka.retrytopic.RetryTopicHeaders;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static com.codewithsrb.BookManagement.configuration.CacheConfiguration.BOOKS_CACHE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test Class for the processing of consumed batches, the retry and error topics and the per-instance cache eviction,
+ * with mocked producer and cache.
+ */
+@ExtendWith(MockitoExtension.class)
+class KafkaConsumerServiceTest {
+
+    private static final int KEYS = 8;
+    private static final int RECORDS_PER_KEY = 25;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private Cache booksCache;
+
+    @Mock
+    private KafkaProducerService kafkaProducerService;
+
+    @Mock
+    private BookReadModelService bookReadModelService;
+
+    @Mock
+    private BookETagService bookETagService;
+
+    @Mock
+    private Acknowledgment acknowledgment;
+
+    private KafkaConsumerService kafkaConsumerService;
+
+    @BeforeEach
+    public void init() {
+        ConsumerProperties consumerProperties = new ConsumerProperties();
+        consumerProperties.setParallel(true);
+        consumerProperties.setWorkers(4);
+        kafkaConsumerService = spy(new KafkaConsumerService(cacheManager, kafkaProducerService, consumerProperties, bookReadModelService,
+                bookETagService, new RetryProperties(), false, new SimpleMeterRegistry()));
+    }
+
+    @AfterEach
+    public void shutdown() {
+        kafkaConsumerService.shutdown();
+    }
+
+    /**
+     * Testing a scenario when a batch mixing several keys is processed in parallel, the records of every key are handled in offset
+     * order and the batch is acknowledged only after every record has been handled
+     */
+    @Test
+    void testParallelBatchKeepsKeyOrderAndAcknowledgesLast() {
+        // every record fails and is sent to the retry topic with its original offset, which shows the order records were handled in
+        doAnswer(invocation -> {
+            Thread.sleep(ThreadLocalRandom.current().nextInt(3));
+            throw new IllegalStateException("handling failed");
+        }).when(kafkaConsumerService).handle(any());
+        Map<Integer, List<Long>> handledOffsetsByKey = new ConcurrentHashMap<>();
+        AtomicInteger handled = new AtomicInteger();
+        doAnswer(invocation -> {
+            BookKey key = invocation.getArgument(1);
+            Headers headers = invocation.getArgument(3);
+            long offset = Long.parseLong(new String(headers.lastHeader(KafkaHeaders.DLT_ORIGINAL_OFFSET).value(), StandardCharsets.UTF_8));
+            handledOffsetsByKey.computeIfAbsent(key.getBookId(), ignored -> new CopyOnWriteArrayList<>()).add(offset);
+            handled.incrementAndGet();
+            return null;
+        }).when(kafkaProducerService).sendToRetryTopic(anyInt(), any(), any(), any());
+        List<Integer> handledWhenAcknowledged = new ArrayList<>();
+        doAnswer(invocation -> handledWhenAcknowledged.add(handled.get())).when(acknowledgment).acknowledge();
+
+        List<ConsumerRecord<SpecificRecord, SpecificRecord>> records = IntStream.range(0, KEYS * RECORDS_PER_KEY)
+                .mapToObj(offset -> new ConsumerRecord<SpecificRecord, SpecificRecord>("books", 0, offset,
+                        BookKey.newBuilder().setBookId(offset % KEYS).build(), null))
+                .toList();
+
+        kafkaConsumerService.listen(records, acknowledgment);
+
+        assertEquals(List.of(KEYS * RECORDS_PER_KEY), handledWhenAcknowledged);
+        assertEquals(KEYS, handledOffsetsByKey.size());
+        handledOffsetsByKey.forEach((key, offsets) -> assertEquals(IntStream.range(0, RECORDS_PER_KEY)
+                .mapToObj(index -> (long) index * KEYS + key)
+                .toList(), offsets));
+        verifyNoInteractions(cacheManager, bookETagService);
+    }
+
+    /**
+     * Testing a scenario when book events written on any node are consumed by the per-instance listener, the books are evicted
+     * from the local cache and their ETags change, while other records are skipped
+     */
+    @Test
+    void testInvalidateEvictsEveryConsumedBook() {
+        when(cacheManager.getCache(BOOKS_CACHE)).thenReturn(booksCache);
+        List<ConsumerRecord<SpecificRecord, SpecificRecord>> records = List.of(
+                new ConsumerRecord<>("books", 0, 0, BookKey.newBuilder().setBookId(7).build(), null),
+                new ConsumerRecord<>("books", 1, 0, null, null),
+                new ConsumerRecord<>("books", 2, 0, BookKey.newBuilder().setBookId(9).build(), null));
+
+        kafkaConsumerService.invalidate(records);
+
+        verify(booksCache).evict(7);
+        verify(booksCache).evict(9);
+        verify(bookETagService).invalidate(7);
+        verify(bookETagService).invalidate(9);
+        verifyNoMoreInteractions(booksCache, bookETagService);
+        verifyNoInteractions(kafkaProducerService);
+    }
+
+    /**
+     * Testing a scenario when a record of the book topic fails, it is sent to the first retry topic with its attempt, due time,
+     * origin and exception headers, and the batch is acknowledged
+     */
+    @Test
+    void testFailedRecordSentToFirstRetryTopic() {
+        doThrow(new IllegalStateException("handling failed")).when(kafkaConsumerService).handle(any());
+        ArgumentCaptor<Headers> headers = ArgumentCaptor.forClass(Headers.class);
+        long before = System.currentTimeMillis();
+
+        kafkaConsumerService.listen(List.of(bookRecord("books", 42, new RecordHeaders())), acknowledgment);
+
+        verify(kafkaProducerService).sendToRetryTopic(eq(1), eq(BookKey.newBuilder().setBookId(7).build()), any(), headers.capture());
+        verify(acknowledgment).acknowledge();
+        assertEquals("1", header(headers.getValue(), RetryTopicHeaders.DEFAULT_HEADER_ATTEMPTS));
+        long dueAt = Long.parseLong(header(headers.getValue(), RetryTopicHeaders.DEFAULT_HEADER_BACKOFF_TIMESTAMP));
+        assertTrue(dueAt >= before + 1_000 && dueAt <= System.currentTimeMillis() + 1_000);
+        assertEquals("books", header(headers.getValue(), KafkaHeaders.DLT_ORIGINAL_TOPIC));
+        assertEquals("0", header(headers.getValue(), KafkaHeaders.DLT_ORIGINAL_PARTITION));
+        assertEquals("42", header(headers.getValue(), KafkaHeaders.DLT_ORIGINAL_OFFSET));
+        assertEquals(IllegalStateException.class.getName(), header(headers.getValue(), KafkaHeaders.DLT_EXCEPTION_FQCN));
+        assertEquals("handling failed", header(headers.getValue(), KafkaHeaders.DLT_EXCEPTION_MESSAGE));
+        verify(kafkaProducerService, never()).sendToErrorTopic(any(), any(), any());
+    }
+
+    /**
+     * Testing a scenario when a retry fails again, the record moves on to the next retry topic with a longer delay
+     * and keeps the origin of its first failure
+     */
+    @Test
+    void testFailedRetryMovesToNextRetryTopic() {
+        doThrow(new IllegalStateException("still failing")).when(kafkaConsumerService).handle(any());
+        ArgumentCaptor<Headers> headers = ArgumentCaptor.forClass(Headers.class);
+        long before = System.currentTimeMillis();
+
+        kafkaConsumerService.retry(List.of(bookRecord("books-retry-1", 3, retryHeaders(1, before - 1))), acknowledgment);
+
+        verify(kafkaProducerService).sendToRetryTopic(eq(2), any(), any(), headers.capture());
+        verify(acknowledgment).acknowledge();
+        assertEquals("2", header(headers.getValue(), RetryTopicHeaders.DEFAULT_HEADER_ATTEMPTS));
+        assertTrue(Long.parseLong(header(headers.getValue(), RetryTopicHeaders.DEFAULT_HEADER_BACKOFF_TIMESTAMP)) >= before + 4_000);
+        assertEquals("books", header(headers.getValue(), KafkaHeaders.DLT_ORIGINAL_TOPIC));
+        assertEquals("42", header(headers.getValue(), KafkaHeaders.DLT_ORIGINAL_OFFSET));
+        assertEquals("still failing", header(headers.getValue(), KafkaHeaders.DLT_EXCEPTION_MESSAGE));
+        assertEquals(1, Arrays.stream(headers.getValue().toArray())
+                .filter(header -> header.key().equals(RetryTopicHeaders.DEFAULT_HEADER_ATTEMPTS))
+                .count());
+    }
+
+    /**
+     * Testing a scenario when a retry batch reaches a record which is not due yet, the records before it are handled
+     * and the batch is nacked from that record with the remaining delay, without acknowledging it
+     */
+    @Test
+    void testRecordNotDueIsNackedWithRemainingDelay() {
+        long now = System.currentTimeMillis();
+        List<ConsumerRecord<SpecificRecord, SpecificRecord>> records = List.of(
+                bookRecord("books-retry-1", 0, retryHeaders(1, now - 10)),
+                bookRecord("books-retry-1", 1, retryHeaders(1, now + 5_000)),
+                bookRecord("books-retry-1", 2, retryHeaders(1, now + 6_000)));
+        ArgumentCaptor<Duration> delay = ArgumentCaptor.forClass(Duration.class);
+
+        kafkaConsumerService.retry(records, acknowledgment);
+
+        verify(kafkaConsumerService).handle(records.get(0));
+        verify(kafkaConsumerService, never()).handle(records.get(1));
+        verify(acknowledgment).nack(eq(1), delay.capture());
+        verify(acknowledgment, never()).acknowledge();
+        assertTrue(delay.getValue().toMillis() > 4_000 && delay.getValue().toMillis() <= 5_000);
+    }
+
+    /**
+     * Testing a scenario when the last retry attempt fails, the record is sent to the error topic with the diagnostic headers
+     * instead of another retry topic
+     */
+    @Test
+    void testLastFailedAttemptSentToErrorTopic() {
+        ArgumentCaptor<Headers> headers = ArgumentCaptor.forClass(Headers.class);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        KafkaConsumerService consumer = spy(new KafkaConsumerService(cacheManager, kafkaProducerService, new ConsumerProperties(),
+                bookReadModelService, bookETagService, new RetryProperties(), false, meterRegistry));
+        doThrow(new IllegalStateException("gave up")).when(consumer).handle(any());
+
+        consumer.retry(List.of(bookRecord("books-retry-3", 5, retryHeaders(3, System.currentTimeMillis() - 1))), acknowledgment);
+        consumer.shutdown();
+
+        verify(kafkaProducerService).sendToErrorTopic(eq(BookKey.newBuilder().setBookId(7).build()), any(), headers.capture());
+        verify(kafkaProducerService, never()).sendToRetryTopic(anyInt(), any(), any(), any());
+        verify(acknowledgment).acknowledge();
+        assertEquals("4", header(headers.getValue(), RetryTopicHeaders.DEFAULT_HEADER_ATTEMPTS));
+        assertEquals("books", header(headers.getValue(), KafkaHeaders.DLT_ORIGINAL_TOPIC));
+        assertEquals("42", header(headers.getValue(), KafkaHeaders.DLT_ORIGINAL_OFFSET));
+        assertEquals(IllegalStateException.class.getName(), header(headers.getValue(), KafkaHeaders.DLT_EXCEPTION_FQCN));
+        assertEquals("gave up", header(headers.getValue(), KafkaHeaders.DLT_EXCEPTION_MESSAGE));
+        assertEquals(1, meterRegistry.counter("book.consumer.dead.letters").count());
+    }
+
+    /**
+     * Testing a scenario when the retry topics are configured, one batch listener container is registered per attempt
+     * on the retry topic of that attempt in the shared group
+     */
+    @Test
+    void testOneRetryContainerPerAttempt() {
+        Topics topics = new Topics();
+        topics.setInputOutputTopic("books");
+        KafkaListenerEndpointRegistrar registrar = mock(KafkaListenerEndpointRegistrar.class);
+        ArgumentCaptor<KafkaListenerEndpoint> endpoints = ArgumentCaptor.forClass(KafkaListenerEndpoint.class);
+
+        new RetryTopicsConfiguration(topics, new RetryProperties(), kafkaConsumerService, "books-group").configureKafkaListeners(registrar);
+
+        verify(registrar, times(3)).registerEndpoint(endpoints.capture());
+        assertEquals(List.of(List.of("books-retry-1"), List.of("books-retry-2"), List.of("books-retry-3")),
+                endpoints.getAllValues().stream().map(endpoint -> List.copyOf(endpoint.getTopics())).toList());
+        assertTrue(endpoints.getAllValues().stream().allMatch(endpoint -> "books-group".equals(endpoint.getGroupId()) && endpoint.getBatchListener()));
+    }
+
+    private static ConsumerRecord<SpecificRecord, SpecificRecord> bookRecord(String topic, long offset, Headers headers) {
+        return new ConsumerRecord<>(topic, 0, offset, ConsumerRecord.NO_TIMESTAMP, TimestampType.NO_TIMESTAMP_TYPE, ConsumerRecord.NULL_SIZE,
+                ConsumerRecord.NULL_SIZE, BookKey.newBuilder().setBookId(7).build(), null, headers, Optional.empty());
+    }
+
+    /**
+     * The headers of a record which failed on offset 42 of the book topic and was sent to the given retry attempt.
+     */
+    private static Headers retryHeaders(int attempt, long dueAt) {
+        Headers headers = new RecordHeaders();
+        headers.add(KafkaHeaders.DLT_ORIGINAL_TOPIC, "books".getBytes(StandardCharsets.UTF_8));
+        headers.add(KafkaHeaders.DLT_ORIGINAL_PARTITION, "0".getBytes(StandardCharsets.UTF_8));
+        headers.add(KafkaHeaders.DLT_ORIGINAL_OFFSET, "42".getBytes(StandardCharsets.UTF_8));
+        headers.add(RetryTopicHeaders.DEFAULT_HEADER_ATTEMPTS, String.valueOf(attempt).getBytes(StandardCharsets.UTF_8));
+        headers.add(RetryTopicHeaders.DEFAULT_HEADER_BACKOFF_TIMESTAMP, String.valueOf(dueAt).getBytes(StandardCharsets.UTF_8));
+        return headers;
+    }
+
+    private static String header(Headers headers, String name) {
+        return new String(headers.lastHeader(name).value(), StandardCharsets.UTF_8);
+    }
+}
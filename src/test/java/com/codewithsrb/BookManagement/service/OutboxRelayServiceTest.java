@@ -0,0 +1,192 @@
+package com.codewithsrb.BookManagement.service;
+
+import com.codewithsrb.BookManagement.configuration.OutboxProperties;
+import com.codewithsrb.BookManagement.configuration.ReadModelProperties;
+import com.codewithsrb.BookManagement.model.OutboxEvent;
+import com.codewithsrb.BookManagement.repository.OutboxRepository;
+import com.codewithsrb.BookManagement.schema.BookKey;
+import com.codewithsrb.BookManagement.schema.BookValue;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.avro.specific.SpecificRecord;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Test Class for the outbox relay, using an in-memory outbox behind a mocked repository and a mocked producer.
+ */
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayServiceTest {
+
+    @Mock
+    private OutboxRepository outboxRepository;
+
+    @Mock
+    private KafkaProducerService kafkaProducerService;
+
+    private final List<OutboxEvent> outbox = new ArrayList<>();
+    private final List<Pair<SpecificRecord, SpecificRecord>> published = new ArrayList<>();
+    private OutboxRelayService outboxRelayService;
+
+    @BeforeEach
+    public void init() {
+        lenient().when(outboxRepository.findByFailedAtIsNullOrderByIdAsc(any(Limit.class))).thenAnswer(invocation -> outbox.stream()
+                .filter(event -> event.getFailedAt() == null)
+                .limit(invocation.<Limit>getArgument(0).max())
+                .collect(Collectors.toList()));
+        lenient().doAnswer(invocation -> {
+            outbox.removeAll(invocation.getArgument(0));
+            return null;
+        }).when(outboxRepository).deleteAllInBatch(anyList());
+        OutboxProperties outboxProperties = new OutboxProperties();
+        outboxProperties.setBatchSize(10);
+        outboxRelayService = new OutboxRelayService(outboxRepository, kafkaProducerService, outboxProperties, new SimpleMeterRegistry());
+    }
+
+    /**
+     * Testing a scenario when a book without an author and a language is relayed, the schema default is published for them
+     */
+    @Test
+    void testRelayBookWithNullFields() {
+        outbox.add(OutboxEvent.builder().id(1).bookId(7).title("dummy title").price(40).createdAt(Instant.now()).build());
+        publishSucceeds();
+
+        outboxRelayService.relay();
+
+        assertEquals(1, published.size());
+        assertEquals(7, ((BookKey) published.get(0).getKey()).getBookId());
+        BookValue value = (BookValue) published.get(0).getValue();
+        assertEquals("dummy title", value.getTitle().toString());
+        assertEquals("None", value.getAuthor().toString());
+        assertEquals("None", value.getBookLanguage().toString());
+        assertEquals(0, outbox.size());
+    }
+
+    /**
+     * Testing a scenario when a value event and a tombstone of the same book are relayed, they are published in order
+     * and the tombstone with a null value
+     */
+    @Test
+    void testRelayTombstoneWithNullValue() {
+        outbox.add(OutboxEvent.builder().id(1).bookId(7).title("dummy title").author("dummy author").bookLanguage("English").price(40)
+                .version(0L).createdAt(Instant.now()).build());
+        outbox.add(OutboxEvent.builder().id(2).bookId(7).tombstone(true).createdAt(Instant.now()).build());
+        publishSucceeds();
+
+        outboxRelayService.relay();
+
+        assertEquals(List.of(7, 7), publishedBookIds());
+        assertNotNull(published.get(0).getValue());
+        assertNull(published.get(1).getValue());
+        assertEquals(0, outbox.size());
+    }
+
+    /**
+     * Testing a scenario when a book is relayed with its version, the read model built from the topic sends the ETag of the database
+     */
+    @Test
+    void testRelayedVersionGivesReadModelETag() {
+        outbox.add(OutboxEvent.builder().id(1).bookId(7).title("dummy title").author("dummy author").bookLanguage("English").price(40)
+                .version(3L).createdAt(Instant.now()).build());
+        publishSucceeds();
+
+        outboxRelayService.relay();
+        BookReadModelService bookReadModelService = new BookReadModelService(new ReadModelProperties(), new SimpleMeterRegistry());
+        bookReadModelService.apply((BookKey) published.get(0).getKey(), (BookValue) published.get(0).getValue());
+
+        assertEquals(3L, ((BookValue) published.get(0).getValue()).getVersion());
+        assertEquals("W/\"book-7-3\"", new BookETagService().bookETag(bookReadModelService.retrieveBookById(7)));
+    }
+
+    /**
+     * Testing a scenario when an event never serializes, it is marked failed after the max attempts and the events behind it are published
+     */
+    @Test
+    void testUnserializableEventMarkedFailed() {
+        LongStream.rangeClosed(1, 3).forEach(id -> outbox.add(event(id)));
+        doAnswer(invocation -> {
+            List<Pair<SpecificRecord, SpecificRecord>> records = invocation.getArgument(0);
+            if (records.stream().anyMatch(record -> ((BookKey) record.getKey()).getBookId() == 2)) {
+                throw new KafkaException(new SerializationException("Error serializing Avro message"));
+            }
+            published.addAll(records);
+            return null;
+        }).when(kafkaProducerService).sendAllToKafka(anyList());
+
+        outboxRelayService.relay();
+        outboxRelayService.relay();
+        assertEquals(List.of(1), publishedBookIds());
+        assertEquals(2, outbox.get(0).getAttempts());
+        assertNull(outbox.get(0).getFailedAt());
+
+        outboxRelayService.relay();
+
+        assertEquals(List.of(1, 3), publishedBookIds());
+        assertEquals(1, outbox.size());
+        assertEquals(2, outbox.get(0).getBookId());
+        assertNotNull(outbox.get(0).getFailedAt());
+        assertTrue(outbox.get(0).getFailureReason().contains("Error serializing Avro message"));
+    }
+
+    /**
+     * Testing a scenario when the broker cannot be reached, the batch is not retried one by one and no event is marked failed
+     */
+    @Test
+    void testBrokerOutageKeepsEvents() {
+        LongStream.rangeClosed(1, 3).forEach(id -> outbox.add(event(id)));
+        doAnswer(invocation -> {
+            throw new KafkaException(new TimeoutException("Topic not present in metadata after 60000 ms."));
+        }).when(kafkaProducerService).sendAllToKafka(anyList());
+
+        for (int run = 0; run < 5; run++) {
+            outboxRelayService.relay();
+        }
+
+        verify(kafkaProducerService, times(5)).sendAllToKafka(anyList());
+        assertEquals(3, outbox.size());
+        outbox.forEach(event -> {
+            assertEquals(0, event.getAttempts());
+            assertNull(event.getFailedAt());
+        });
+    }
+
+    private void publishSucceeds() {
+        doAnswer(invocation -> {
+            published.addAll(invocation.getArgument(0));
+            return null;
+        }).when(kafkaProducerService).sendAllToKafka(anyList());
+    }
+
+    private List<Integer> publishedBookIds() {
+        return published.stream().map(record -> ((BookKey) record.getKey()).getBookId()).toList();
+    }
+
+    private static OutboxEvent event(long id) {
+        return OutboxEvent.builder().id(id).bookId((int) id).title("title " + id).author("author").bookLanguage("English").price(10)
+                .createdAt(Instant.now()).build();
+    }
+}
@@ -0,0 +1,125 @@
+package com.codewithsrb.BookManagement.service;
+
+import com.codewithsrb.BookManagement.exception.ApiException;
+import com.codewithsrb.BookManagement.model.UserInfo;
+import com.codewithsrb.BookManagement.repository.UserRepository;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test Class which is using a mocked repository and email filter to test the user registration.
+ */
+@ExtendWith(MockitoExtension.class)
+class UserDetailsServiceImplTest {
+
+    private static final String EMAIL = "dummy@email.com";
+    private static final String EMAIL_ALREADY_USED = "Email already used. Please use new email and try again.";
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private RegisteredEmailFilter registeredEmailFilter;
+
+    private UserDetailsServiceImpl userDetailsService;
+    private UserInfo userInfo;
+
+    @BeforeEach
+    public void init() {
+        userDetailsService = new UserDetailsServiceImpl(passwordEncoder, userRepository, registeredEmailFilter);
+        userInfo = UserInfo.builder().email(EMAIL).password("dummy password").build();
+    }
+
+    /**
+     * Testing a scenario when the filter reports an email it has never seen as maybe registered, the query finds no user
+     * and the user is registered
+     */
+    @Test
+    void testRegisterUserOnFilterFalsePositive() {
+        when(registeredEmailFilter.mightContain(EMAIL)).thenReturn(true);
+        when(userRepository.findByEmail(EMAIL)).thenReturn(null);
+        when(passwordEncoder.encode("dummy password")).thenReturn("hashed password");
+        when(userRepository.save(userInfo)).thenReturn(userInfo);
+
+        UserInfo registeredUser = userDetailsService.registerNewUser(userInfo);
+
+        assertEquals("hashed password", registeredUser.getPassword());
+        assertEquals("ROLE_USER", registeredUser.getRole());
+        verify(registeredEmailFilter).add(EMAIL);
+    }
+
+    /**
+     * Testing a scenario when the filter has seen the email and the query finds the user, the registration is rejected
+     * without hashing the password
+     */
+    @Test
+    void testRegisterUserWithKnownEmail() {
+        when(registeredEmailFilter.mightContain(EMAIL)).thenReturn(true);
+        when(userRepository.findByEmail(EMAIL)).thenReturn(UserInfo.builder().email(EMAIL).build());
+
+        ApiException exception = assertThrows(ApiException.class, () -> userDetailsService.registerNewUser(userInfo));
+
+        assertEquals(EMAIL_ALREADY_USED, exception.getMessage());
+        verify(passwordEncoder, never()).encode(anyString());
+        verify(userRepository, never()).save(any());
+    }
+
+    /**
+     * Testing a scenario when the filter has not seen the email but the unique email index rejects the insert,
+     * the email is reported as already used and added to the filter
+     */
+    @Test
+    void testRegisterUserRejectedByUniqueIndex() {
+        when(registeredEmailFilter.mightContain(EMAIL)).thenReturn(false);
+        when(passwordEncoder.encode("dummy password")).thenReturn("hashed password");
+        when(userRepository.save(userInfo)).thenThrow(integrityViolation("\"PUBLIC.UK_USER_INFO_EMAIL_INDEX_B ON PUBLIC.USER_INFO(EMAIL NULLS FIRST)\""));
+
+        ApiException exception = assertThrows(ApiException.class, () -> userDetailsService.registerNewUser(userInfo));
+
+        assertEquals(EMAIL_ALREADY_USED, exception.getMessage());
+        verify(userRepository, never()).findByEmail(anyString());
+        verify(registeredEmailFilter).add(EMAIL);
+    }
+
+    /**
+     * Testing a scenario when the insert violates a constraint other than the unique email index, the violation is rethrown
+     * and the email is not reported as already used
+     */
+    @Test
+    void testRegisterUserRejectedByOtherConstraint() {
+        when(registeredEmailFilter.mightContain(EMAIL)).thenReturn(false);
+        when(passwordEncoder.encode("dummy password")).thenReturn("hashed password");
+        DataIntegrityViolationException violation = integrityViolation("\"PUBLIC.CONSTRAINT_8 ON PUBLIC.USER_INFO(ROLE)\"");
+        when(userRepository.save(userInfo)).thenThrow(violation);
+
+        DataIntegrityViolationException exception = assertThrows(DataIntegrityViolationException.class, () -> userDetailsService.registerNewUser(userInfo));
+
+        assertSame(violation, exception);
+        verify(registeredEmailFilter, never()).add(anyString());
+    }
+
+    private static DataIntegrityViolationException integrityViolation(String constraintName) {
+        ConstraintViolationException cause = new ConstraintViolationException("could not execute statement", new SQLException(), constraintName);
+        return new DataIntegrityViolationException("could not execute statement", cause);
+    }
+}